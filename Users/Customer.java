@@ -3,12 +3,9 @@ package Users;
 import services.Reservation;
 import services.ReservationsManagers;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.Scanner;
 
 /**
  * Represents a Customer user with a username, password, and travel history.
@@ -34,22 +31,12 @@ public class Customer implements User {
     }
 
     /**
-     * Loads the customer's travel history from the reservations file.
+     * Loads the customer's travel history from the per-customer index kept by {@link ReservationsManagers}.
      *
      * @throws FileNotFoundException If the reservations file is not found.
      */
     public void loadTravelHistory() throws FileNotFoundException {
-        travelHistory = new ArrayList<>();
-        File file = new File("services/reservations.txt");
-        Scanner scn = new Scanner(file);
-        ReservationsManagers.loadReservations();
-        while (scn.hasNextLine()) {
-            String line = scn.nextLine();
-            String[] lineArray = line.split(",");
-            if (Objects.equals(lineArray[5], String.valueOf(this.getID()))) {
-                travelHistory.add(ReservationsManagers.getReservation(Integer.parseInt(lineArray[0])));
-            }
-        }
+        travelHistory = ReservationsManagers.getReservationsOfCustomer(getID());
     }
 
     /**
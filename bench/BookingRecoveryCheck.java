@@ -0,0 +1,100 @@
+package bench;
+
+import Users.Customer;
+import core.App;
+import databases.CustomerDB;
+import products.Flight;
+import products.Hotel;
+import products.Taxi;
+import services.BookingTransaction;
+import services.Package;
+import services.PackageManager;
+import services.Vendor;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Checks that a booking is all or nothing across a crash, each time by halting one JVM and
+ * running {@link BookingTransaction#rollBackUnreserved()} in the next:
+ * <ul>
+ *     <li>hotel, flight and taxi capacity committed for a reservation that was never written is
+ *     given back;</li>
+ *     <li>capacity of a booking whose reservation was written is kept.</li>
+ * </ul>
+ * Run from the project directory: {@code java -cp <classes> bench.BookingRecoveryCheck}
+ */
+public class BookingRecoveryCheck {
+    private static final int PACKAGE_ID = 400007;
+    private static final String CUSTOMER_ID = "600002";
+    // Far above any reservation ID in the data, so no reservation is ever written under it.
+    private static final int UNWRITTEN_RESERVATION = 599999;
+    private static final Path STATE_FILE = Paths.get("booking-recovery-state.txt");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            for (String step : new String[]{"crash", "after-crash", "book", "after-book"}) {
+                Scratch.check(Scratch.run(dir, BookingRecoveryCheck.class, step) == 0, "step " + step);
+            }
+            Scratch.exitWithResult();
+        }
+        // Bookings and reservations report every call on standard output.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        App.user = CustomerDB.retrieveCustomer(CUSTOMER_ID);
+        Package pck = PackageManager.retrievePackage(PACKAGE_ID);
+        LocalDate flightDate = pck.getFlight().isDayChange() ? pck.getDateStart().minusDays(1) : pck.getDateStart();
+        List<String> before = args[0].startsWith("after-") ? Files.readAllLines(STATE_FILE) : null;
+        if (before != null) {
+            BookingTransaction.rollBackUnreserved();
+        }
+        String left = left(pck, flightDate);
+
+        switch (args[0]) {
+            case "crash":
+                Files.write(STATE_FILE, List.of(left));
+                BookingTransaction booking = BookingTransaction.hold(pck, pck.getHotelStart(), pck.getDateEnd(),
+                        flightDate, pck.getTaxiTime());
+                booking.commit(UNWRITTEN_RESERVATION);
+                Scratch.check(!left(pck, flightDate).equals(left), "committed booking took capacity");
+                Runtime.getRuntime().halt(0);
+                break;
+            case "after-crash":
+                Scratch.check(left.equals(before.get(0)),
+                        "capacity of the unreserved booking was given back: " + left + ", was " + before.get(0));
+                break;
+            case "book":
+                Vendor.packageSeller(pck, (Customer) App.user, pck.getTaxiTime(), pck.getHotelStart(),
+                        flightDate, pck.getDateEnd());
+                Files.write(STATE_FILE, List.of(left(pck, flightDate)));
+                Runtime.getRuntime().halt(0);
+                break;
+            case "after-book":
+                Scratch.check(left.equals(before.get(0)),
+                        "capacity of the reserved booking was kept: " + left + ", expected " + before.get(0));
+                break;
+            default:
+                throw new IllegalArgumentException(args[0]);
+        }
+        Scratch.exitWithResult();
+    }
+
+    /**
+     * Describes the rooms, seats and cars a package has left, as "rooms/seats/cars".
+     */
+    private static String left(Package pck, LocalDate flightDate) {
+        Hotel hotel = pck.getHotel();
+        Flight flight = pck.getFlight();
+        Taxi taxi = pck.getTaxi();
+        LocalDateTime pickup = pck.getTaxiTime();
+        return hotel.getMinAvailability(pck.getHotelStart(), pck.getDateEnd())
+                + "/" + flight.getAvailabilityForDate(flightDate)
+                + "/" + taxi.getMinAvailability(pickup, pickup.plusMinutes(Taxi.travelMinutes(hotel)));
+    }
+}
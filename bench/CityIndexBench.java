@@ -0,0 +1,80 @@
+package bench;
+
+import products.Hotel;
+import services.TravelParser;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares {@link Hotel#selectByCity(String)}, which reads the city index, with the scan over
+ * every hotel that it replaced, on 1,000,000 generated hotels in 220 cities. Each query picks a
+ * random city, a third of them in another letter case, and both must return the same hotels in
+ * the same order.
+ * <p>
+ * Run from the project directory: {@code java -cp <classes> bench.CityIndexBench}
+ */
+public class CityIndexBench {
+    private static final int HOTELS = 1000000;
+    private static final int CITIES = 220;
+    private static final int QUERIES = 200;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            Scratch.writeHotels(dir, HOTELS, CITIES);
+            Scratch.check(Scratch.run(dir, CityIndexBench.class, "measure") == 0, "city lookups on " + HOTELS + " hotels");
+            Scratch.exitWithResult();
+        }
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        TravelParser.parseHotels();
+
+        Random random = new Random(5);
+        long[] scanned = new long[QUERIES];
+        long[] indexed = new long[QUERIES];
+        int mismatches = 0;
+        for (int run = -QUERIES; run < QUERIES; run++) {
+            String city = Scratch.city(random.nextInt(CITIES));
+            if (random.nextInt(3) == 0) {
+                city = city.toUpperCase();
+            }
+            long start = System.nanoTime();
+            ArrayList<Hotel> byScan = scan(city);
+            long middle = System.nanoTime();
+            ArrayList<Hotel> byIndex = Hotel.selectByCity(city);
+            long end = System.nanoTime();
+            if (run >= 0) {
+                scanned[run] = middle - start;
+                indexed[run] = end - middle;
+            }
+            if (!byScan.equals(byIndex)) {
+                mismatches++;
+            }
+        }
+        Arrays.sort(scanned);
+        Arrays.sort(indexed);
+        report.printf("%d queries after %d warm-up: scan median %.2f ms (p99 %.2f ms), index median %.3f ms (p99 %.3f ms)%n",
+                QUERIES, QUERIES, scanned[QUERIES / 2] / 1e6, scanned[QUERIES * 99 / 100] / 1e6,
+                indexed[QUERIES / 2] / 1e6, indexed[QUERIES * 99 / 100] / 1e6);
+        Scratch.check(mismatches == 0, "index returns the hotels of the scan, in the same order");
+        Scratch.exitWithResult();
+    }
+
+    /**
+     * The lookup as it was before the index: every hotel, compared ignoring case.
+     */
+    private static ArrayList<Hotel> scan(String city) {
+        ArrayList<Hotel> hotels = new ArrayList<>();
+        for (Hotel hotel : TravelParser.getHotelsDict().values()) {
+            if (hotel.getCity().equalsIgnoreCase(city)) {
+                hotels.add(hotel);
+            }
+        }
+        return hotels;
+    }
+}
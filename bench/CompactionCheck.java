@@ -0,0 +1,162 @@
+package bench;
+
+import core.App;
+import core.AvailabilityCompactor;
+import databases.CustomerDB;
+import products.CompactionReport;
+import products.Flight;
+import products.Hotel;
+import products.Taxi;
+import services.TravelParser;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Checks that {@link AvailabilityCompactor#compactAll(LocalDate)} only drops rows that no longer
+ * matter. One JVM grows the hotel, flight and taxi availability files with bookings on both sides
+ * of a horizon, cancelling every third one, and writes down what it sees in memory. The next JVM
+ * compacts the files at the horizon, and a third replays them. From the horizon on, every
+ * availability must replay as it was before compaction; before it, every day must read as fully
+ * available. The rows and parse times before and after compaction are reported.
+ * <p>
+ * Run from the project directory: {@code java -cp <classes> bench.CompactionCheck}
+ */
+public class CompactionCheck {
+    private static final LocalDate HORIZON = LocalDate.of(2036, 1, 1);
+    private static final int DAYS_EACH_SIDE = 60;
+    private static final int PRODUCTS = 40;
+    private static final int RIDE_MINUTES = 20;
+    private static final String CUSTOMER_ID = "600002";
+    private static final Path STATE_FILE = Paths.get("compaction-state.txt");
+    private static List<Hotel> hotels;
+    private static List<Flight> flights;
+    private static List<Taxi> taxis;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            for (String step : new String[]{"grow", "compact", "replay"}) {
+                Scratch.check(Scratch.run(dir, CompactionCheck.class, step) == 0, "step " + step);
+            }
+            Scratch.exitWithResult();
+        }
+        PrintStream report = System.out;
+        // Bookings and cancellations report every call on standard output.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        App.user = CustomerDB.retrieveCustomer(CUSTOMER_ID);
+        Hotel.preloadAvailability();
+        Flight.preloadAvailability();
+        Taxi.preloadAvailability();
+        hotels = first(TravelParser.getHotelsDict());
+        flights = first(TravelParser.getFlightsDict());
+        taxis = first(TravelParser.getTaxisDict());
+
+        switch (args[0]) {
+            case "grow":
+                grow();
+                Files.write(STATE_FILE, availability());
+                break;
+            case "compact":
+                for (CompactionReport compaction : AvailabilityCompactor.compactAll(HORIZON)) {
+                    report.println(compaction);
+                    Scratch.check(compaction.getRowsAfter() < compaction.getRowsBefore(),
+                            compaction.getFileName() + " reclaimed rows in compaction");
+                }
+                break;
+            case "replay":
+                List<String> before = Files.readAllLines(STATE_FILE);
+                List<String> after = availability();
+                int kept = 0;
+                int keptMatching = 0;
+                int dropped = 0;
+                int droppedAtDefault = 0;
+                for (int i = 0; i < before.size(); i++) {
+                    String[] fields = before.get(i).split(",");
+                    if (LocalDate.parse(fields[2].substring(0, 10)).isBefore(HORIZON)) {
+                        dropped++;
+                        droppedAtDefault += after.get(i).endsWith(",full") ? 1 : 0;
+                    } else {
+                        kept++;
+                        keptMatching += after.get(i).equals(before.get(i)) ? 1 : 0;
+                    }
+                }
+                Scratch.check(after.size() == before.size(), "same availabilities sampled before and after");
+                Scratch.check(keptMatching == kept,
+                        keptMatching + " of " + kept + " availabilities from the horizon on replay unchanged");
+                Scratch.check(droppedAtDefault == dropped,
+                        droppedAtDefault + " of " + dropped + " availabilities before the horizon read as full");
+                break;
+            default:
+                throw new IllegalArgumentException(args[0]);
+        }
+        Scratch.exitWithResult();
+    }
+
+    /**
+     * Books a room, a seat and a ride on every day around the horizon for each sampled product,
+     * and cancels every third of them, so that the files hold both booked rows and rows that are
+     * back at the product's full capacity.
+     */
+    private static void grow() {
+        int booking = 0;
+        for (LocalDate day = HORIZON.minusDays(DAYS_EACH_SIDE); day.isBefore(HORIZON.plusDays(DAYS_EACH_SIDE)); day = day.plusDays(1)) {
+            for (int i = 0; i < PRODUCTS; i++) {
+                boolean cancel = booking++ % 3 == 0;
+                Hotel hotel = hotels.get(i);
+                hotel.bookRange(day, day);
+                Flight flight = flights.get(i);
+                flight.book(day);
+                Taxi taxi = taxis.get(i);
+                LocalDateTime pickup = day.atTime(10, 0);
+                taxi.reserve(pickup, pickup.plusMinutes(RIDE_MINUTES));
+                if (cancel) {
+                    hotel.cancelRange(day, day);
+                    flight.cancelBook(day);
+                    taxi.release(pickup, pickup.plusMinutes(RIDE_MINUTES));
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the availability of every sampled product on every day around the horizon, one
+     * "kind,id,day,left" line each, with "full" for a product that has all of its capacity left.
+     */
+    private static List<String> availability() {
+        List<String> lines = new ArrayList<>();
+        for (LocalDate day = HORIZON.minusDays(DAYS_EACH_SIDE); day.isBefore(HORIZON.plusDays(DAYS_EACH_SIDE)); day = day.plusDays(1)) {
+            for (int i = 0; i < PRODUCTS; i++) {
+                Hotel hotel = hotels.get(i);
+                lines.add(line("hotel", hotel.getId(), day.toString(), hotel.getAvailabilityForDate(day), hotel.getAvailableCount()));
+                Flight flight = flights.get(i);
+                lines.add(line("flight", flight.getId(), day.toString(), flight.getAvailabilityForDate(day), flight.getAvailableCount()));
+                Taxi taxi = taxis.get(i);
+                LocalDateTime pickup = day.atTime(10, 0);
+                lines.add(line("taxi", taxi.getId(), pickup.toString(),
+                        taxi.getMinAvailability(pickup, pickup.plusMinutes(RIDE_MINUTES)), taxi.getAvailableCount()));
+            }
+        }
+        return lines;
+    }
+
+    private static String line(String kind, int id, String when, int left, int capacity) {
+        return kind + "," + id + "," + when + "," + (left == capacity ? "full" : String.valueOf(left));
+    }
+
+    /**
+     * Returns the products with the lowest IDs, so that every step samples the same ones.
+     */
+    private static <T> List<T> first(Map<Integer, T> products) {
+        return new ArrayList<>(new TreeMap<>(products).values()).subList(0, PRODUCTS);
+    }
+}
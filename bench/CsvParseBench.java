@@ -0,0 +1,189 @@
+package bench;
+
+import products.Flight;
+import products.Hotel;
+import services.MappedCsvReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Scanner;
+
+/**
+ * Compares the memory-mapped catalog parse with the Scanner and String.split parse it replaced,
+ * on 500,000 generated hotels and 300,000 generated flights. Both build the same Hotel and Flight
+ * objects; the Scanner path is the one TravelParser used before, reading UTF-8 so that it gets
+ * past the byte order mark of the flights header. Each parse runs five times after two warm-up
+ * runs, and the two catalogs are compared field by field.
+ * <p>
+ * Run from the project directory: {@code java -cp <classes> bench.CsvParseBench}
+ */
+public class CsvParseBench {
+    private static final String HOTELS_CSV = "datasets/FinalKU_Travel_Agency_Dataset_Hotels.csv";
+    private static final String FLIGHTS_CSV = "datasets/FinalKU_Travel_Agency_Dataset_Flights.csv";
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            Scratch.writeHotels(dir, 500000);
+            Scratch.writeFlights(dir, 300000);
+            Scratch.check(Scratch.run(dir, CsvParseBench.class, "measure") == 0, "parse 500000 hotels and 300000 flights");
+            Scratch.exitWithResult();
+        }
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Map<Integer, Hotel> scannedHotels = null;
+        Map<Integer, Hotel> mappedHotels = null;
+        Map<Integer, Flight> scannedFlights = null;
+        Map<Integer, Flight> mappedFlights = null;
+        long[] scanner = new long[RUNS];
+        long[] mapped = new long[RUNS];
+        for (int run = -2; run < RUNS; run++) {
+            long start = System.nanoTime();
+            scannedHotels = scanHotels();
+            scannedFlights = scanFlights();
+            long middle = System.nanoTime();
+            mappedHotels = mapHotels();
+            mappedFlights = mapFlights();
+            long end = System.nanoTime();
+            if (run >= 0) {
+                scanner[run] = middle - start;
+                mapped[run] = end - middle;
+            }
+        }
+        Arrays.sort(scanner);
+        Arrays.sort(mapped);
+        report.printf("Scanner: median %.2f s (best %.2f s); mapped: median %.2f s (best %.2f s)%n",
+                scanner[RUNS / 2] / 1e9, scanner[0] / 1e9, mapped[RUNS / 2] / 1e9, mapped[0] / 1e9);
+
+        Scratch.check(scannedHotels.size() == 500000 && sameHotels(scannedHotels, mappedHotels),
+                mappedHotels.size() + " hotels match the Scanner parse");
+        Scratch.check(scannedFlights.size() == 300000 && sameFlights(scannedFlights, mappedFlights),
+                mappedFlights.size() + " flights match the Scanner parse");
+        Scratch.exitWithResult();
+    }
+
+    private static Map<Integer, Hotel> scanHotels() throws IOException {
+        HashMap<Integer, Hotel> hotels = new HashMap<>();
+        int uniqueId = 100000;
+        try (Scanner reader = new Scanner(new File(HOTELS_CSV), StandardCharsets.UTF_8)) {
+            reader.nextLine();
+            while (reader.hasNextLine()) {
+                String[] fields = reader.nextLine().split(",");
+                if (fields.length >= 6) {
+                    hotels.put(uniqueId, new Hotel(fields[0], fields[1], fields[2], Integer.parseInt(fields[3]),
+                            Double.parseDouble(fields[4]), Double.parseDouble(fields[5]), uniqueId));
+                    uniqueId++;
+                }
+            }
+        }
+        return hotels;
+    }
+
+    private static Map<Integer, Flight> scanFlights() throws IOException {
+        HashMap<Integer, Flight> flights = new HashMap<>();
+        int uniqueId = 200000;
+        try (Scanner reader = new Scanner(new File(FLIGHTS_CSV), StandardCharsets.UTF_8)) {
+            reader.nextLine();
+            while (reader.hasNextLine()) {
+                String[] fields = reader.nextLine().split(",");
+                if (fields.length >= 9) {
+                    double price = Double.parseDouble(fields[7]);
+                    int seats = Integer.parseInt(fields[8]);
+                    if (fields[3].isEmpty()) {
+                        flights.put(uniqueId, new Flight(fields[1], fields[2], fields[9], fields[10], fields[11], fields[12],
+                                fields[13], fields[14], seats, fields[6], price, uniqueId));
+                    } else {
+                        flights.put(uniqueId, new Flight(fields[1], fields[2], fields[3], seats, fields[4], fields[5],
+                                fields[6], price, uniqueId));
+                    }
+                    uniqueId++;
+                }
+            }
+        }
+        return flights;
+    }
+
+    private static Map<Integer, Hotel> mapHotels() throws IOException {
+        HashMap<Integer, Hotel> hotels = new HashMap<>();
+        int uniqueId = 100000;
+        try (MappedCsvReader reader = new MappedCsvReader(HOTELS_CSV)) {
+            reader.nextRow();
+            while (reader.nextRow()) {
+                if (reader.fieldCount() >= 6) {
+                    hotels.put(uniqueId, new Hotel(reader.getString(0), reader.getString(1), reader.getString(2),
+                            reader.getInt(3), reader.getDouble(4), reader.getDouble(5), uniqueId));
+                    uniqueId++;
+                }
+            }
+        }
+        return hotels;
+    }
+
+    private static Map<Integer, Flight> mapFlights() throws IOException {
+        HashMap<Integer, Flight> flights = new HashMap<>();
+        int uniqueId = 200000;
+        try (MappedCsvReader reader = new MappedCsvReader(FLIGHTS_CSV)) {
+            reader.nextRow();
+            while (reader.nextRow()) {
+                if (reader.fieldCount() >= 9) {
+                    double price = reader.getDouble(7);
+                    int seats = reader.getInt(8);
+                    if (reader.isEmpty(3)) {
+                        flights.put(uniqueId, new Flight(reader.getString(1), reader.getString(2), reader.getString(9),
+                                reader.getString(10), reader.getString(11), reader.getString(12), reader.getString(13),
+                                reader.getString(14), seats, reader.getString(6), price, uniqueId));
+                    } else {
+                        flights.put(uniqueId, new Flight(reader.getString(1), reader.getString(2), reader.getString(3),
+                                seats, reader.getString(4), reader.getString(5), reader.getString(6), price, uniqueId));
+                    }
+                    uniqueId++;
+                }
+            }
+        }
+        return flights;
+    }
+
+    private static boolean sameHotels(Map<Integer, Hotel> expected, Map<Integer, Hotel> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (Map.Entry<Integer, Hotel> entry : expected.entrySet()) {
+            Hotel a = entry.getValue();
+            Hotel b = actual.get(entry.getKey());
+            if (b == null || !a.getName().equals(b.getName()) || !a.getCity().equals(b.getCity())
+                    || !a.getRoomType().equals(b.getRoomType()) || a.getAvailableCount() != b.getAvailableCount()
+                    || a.getPricePerNight() != b.getPricePerNight() || a.getDistanceToAirport() != b.getDistanceToAirport()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameFlights(Map<Integer, Flight> expected, Map<Integer, Flight> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (Map.Entry<Integer, Flight> entry : expected.entrySet()) {
+            Flight a = entry.getValue();
+            Flight b = actual.get(entry.getKey());
+            if (b == null || !a.getAirline().equals(b.getAirline()) || !a.getDepartureCity().equals(b.getDepartureCity())
+                    || !a.getArrivalCity().equals(b.getArrivalCity()) || !Objects.equals(a.getStopoverCity(), b.getStopoverCity())
+                    || !a.getDepartureTime().equals(b.getDepartureTime()) || !a.getArrivalTime().equals(b.getArrivalTime())
+                    || !a.getTicketClass().equals(b.getTicketClass()) || a.getPrice() != b.getPrice()
+                    || a.getAvailableCount() != b.getAvailableCount()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,156 @@
+package bench;
+
+import constants.Constants;
+import products.Flight;
+import services.FlightRouter;
+import services.Itinerary;
+import services.TravelParser;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Checks {@link FlightRouter#search} against an exhaustive enumeration of every itinerary
+ * allowed by the same rules, on the project's flights and for both criteria, and on a small
+ * dataset where the cheapest way into a connecting city lands too early for the only onward
+ * flight, so the search must keep a dearer arrival there.
+ * <p>
+ * Run from the project directory: {@code java -cp <classes> bench.FlightRouterCheck}
+ */
+public class FlightRouterCheck {
+    private static final LocalDate DATE = LocalDate.of(2026, 11, 20);
+    private static final int N = 10;
+    private static final String[][] PAIRS = {
+            {"Istanbul", "Paris"}, {"Dublin", "Athens"}, {"Berlin", "Lisbon"}, {"Rome", "Istanbul"}, {"Oslo", "Dubai"}
+    };
+    private static final Path FLIGHTS_CSV = Paths.get("datasets/FinalKU_Travel_Agency_Dataset_Flights.csv");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Scratch.check(Scratch.run(Scratch.copyData(), FlightRouterCheck.class, "exhaustive") == 0,
+                    "search matches exhaustive enumeration");
+            Path dir = Scratch.copyData();
+            List<String> flights = Files.readAllLines(dir.resolve(FLIGHTS_CSV), StandardCharsets.UTF_8);
+            Files.write(dir.resolve(FLIGHTS_CSV), List.of(flights.get(0),
+                    "FL1,TestAir,Ankara,Lyon,5:00,10:00,Economy,100,10,,,,,,",
+                    "FL2,TestAir,Ankara,Lyon,5:30,10:30,Economy,120,10,,,,,,",
+                    "FL3,TestAir,Lyon,Porto,10:15,12:15,Economy,50,10,,,,,,"), StandardCharsets.UTF_8);
+            Files.write(dir.resolve("products/flightavailability.txt"), new byte[0]);
+            Scratch.check(Scratch.run(dir, FlightRouterCheck.class, "layover") == 0,
+                    "search keeps a dearer arrival that can still connect");
+            Scratch.exitWithResult();
+        }
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Flight.preloadAvailability();
+        if (args[0].equals("exhaustive")) {
+            exhaustive(report);
+        } else {
+            layover();
+        }
+        Scratch.exitWithResult();
+    }
+
+    private static void exhaustive(PrintStream report) {
+        for (int run = 0; run < 20; run++) {
+            FlightRouter.search("Berlin", "Paris", DATE, N, FlightRouter.Criterion.PRICE);
+        }
+        for (String[] pair : PAIRS) {
+            for (FlightRouter.Criterion criterion : FlightRouter.Criterion.values()) {
+                long start = System.nanoTime();
+                ArrayList<Itinerary> found = FlightRouter.search(pair[0], pair[1], DATE, N, criterion);
+                long nanos = System.nanoTime() - start;
+                ArrayList<Double> costs = new ArrayList<>();
+                for (Itinerary itinerary : found) {
+                    costs.add(costOf(itinerary.getTotalPrice(), itinerary.getDuration(), criterion));
+                }
+                List<Double> expected = enumerate(pair[0], pair[1], criterion);
+                expected = expected.subList(0, Math.min(N, expected.size()));
+                report.printf("%s to %s by %s: %d found in %.1f ms%n", pair[0], pair[1], criterion, found.size(), nanos / 1e6);
+                Scratch.check(!expected.isEmpty() && costs.equals(expected), pair[0] + " to " + pair[1] + " by " + criterion
+                        + " matches the best " + N + " of every itinerary");
+            }
+        }
+    }
+
+    private static void layover() {
+        ArrayList<Itinerary> found = FlightRouter.search("Ankara", "Porto", DATE, 1, FlightRouter.Criterion.PRICE);
+        Scratch.check(found.size() == 1, "one itinerary found");
+        Scratch.check(!found.isEmpty() && found.get(0).getTotalPrice() == 170
+                        && found.get(0).getArrivalDateTime().equals(DATE.plusDays(1).atTime(12, 15)),
+                "it takes the 5:30 flight, then the next day's 10:15: " + found);
+    }
+
+    /**
+     * Lists the cost of every itinerary from one city to another, cheapest first.
+     */
+    private static List<Double> enumerate(String departureCity, String arrivalCity, FlightRouter.Criterion criterion) {
+        ArrayList<Double> costs = new ArrayList<>();
+        for (Flight flight : TravelParser.getFlightsDict().values()) {
+            if (flight.getDepartureCity().equalsIgnoreCase(departureCity) && flight.getAvailabilityForDate(DATE) > 0) {
+                Set<String> visited = new HashSet<>();
+                visited.add(departureCity.toLowerCase(Locale.ROOT));
+                visited.add(flight.getArrivalCity().toLowerCase(Locale.ROOT));
+                extend(new ArrayList<>(List.of(flight)), new ArrayList<>(List.of(DATE)), visited, arrivalCity, criterion, costs);
+            }
+        }
+        Collections.sort(costs);
+        return costs;
+    }
+
+    private static void extend(List<Flight> legs, List<LocalDate> dates, Set<String> visited, String arrivalCity,
+                               FlightRouter.Criterion criterion, List<Double> costs) {
+        Flight last = legs.get(legs.size() - 1);
+        LocalDateTime arrival = Itinerary.arrivalOf(last, dates.get(dates.size() - 1));
+        if (last.getArrivalCity().equalsIgnoreCase(arrivalCity)) {
+            double price = 0;
+            for (Flight leg : legs) {
+                price += leg.getPrice();
+            }
+            LocalDateTime start = LocalDateTime.of(dates.get(0), legs.get(0).getDepartureTime());
+            costs.add(costOf(price, Duration.between(start, arrival), criterion));
+            return;
+        }
+        if (legs.size() >= Constants.MAX_ITINERARY_LEGS) {
+            return;
+        }
+        LocalDateTime earliest = arrival.plusMinutes(Constants.MIN_CONNECTION_MINUTES);
+        LocalDateTime latest = arrival.plusHours(Constants.MAX_LAYOVER_HOURS);
+        for (Flight flight : TravelParser.getFlightsDict().values()) {
+            String next = flight.getArrivalCity().toLowerCase(Locale.ROOT);
+            if (!flight.getDepartureCity().equalsIgnoreCase(last.getArrivalCity()) || visited.contains(next)) {
+                continue;
+            }
+            for (LocalDate day = earliest.toLocalDate(); !day.isAfter(latest.toLocalDate()); day = day.plusDays(1)) {
+                LocalDateTime departure = LocalDateTime.of(day, flight.getDepartureTime());
+                if (departure.isBefore(earliest) || departure.isAfter(latest) || flight.getAvailabilityForDate(day) <= 0) {
+                    continue;
+                }
+                legs.add(flight);
+                dates.add(day);
+                visited.add(next);
+                extend(legs, dates, visited, arrivalCity, criterion, costs);
+                legs.remove(legs.size() - 1);
+                dates.remove(dates.size() - 1);
+                visited.remove(next);
+            }
+        }
+    }
+
+    private static double costOf(double price, Duration duration, FlightRouter.Criterion criterion) {
+        return criterion == FlightRouter.Criterion.PRICE ? price : duration.toMinutes();
+    }
+}
@@ -0,0 +1,76 @@
+package bench;
+
+import products.AvailabilityLedger;
+import products.InventoryHold;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+/**
+ * Checks that holding a day the {@link AvailabilityLedger} has no entry for leaves it without one:
+ * <ul>
+ *     <li>while held, the day reads as its default capacity less the held units;</li>
+ *     <li>once released, the day has no entry, and releasing a unit on it reports NOT_BOOKED
+ *     rather than AT_CAPACITY;</li>
+ *     <li>a committed hold records the default capacity less one, as a booking does;</li>
+ *     <li>after a restart, only the committed day has an entry.</li>
+ * </ul>
+ * The ledger uses a file of its own in the scratch directory.
+ * Run from the project directory: {@code java -cp <classes> bench.HeldDayCheck}
+ */
+public class HeldDayCheck {
+    private static final Path LEDGER_FILE = Paths.get("products/heldday.txt");
+    private static final int PRODUCT_ID = 100001;
+    private static final int CAPACITY = 5;
+    private static final LocalDate RELEASED_DAY = LocalDate.of(2035, 3, 1);
+    private static final LocalDate COMMITTED_DAY = LocalDate.of(2035, 3, 2);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            Files.createFile(dir.resolve(LEDGER_FILE));
+            for (String step : new String[]{"hold", "restart"}) {
+                Scratch.check(Scratch.run(dir, HeldDayCheck.class, step) == 0, "step " + step);
+            }
+            Scratch.exitWithResult();
+        }
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        AvailabilityLedger ledger = new AvailabilityLedger(LEDGER_FILE.toString());
+
+        switch (args[0]) {
+            case "hold":
+                InventoryHold first = ledger.hold(PRODUCT_ID, RELEASED_DAY, COMMITTED_DAY, CAPACITY);
+                InventoryHold second = ledger.hold(PRODUCT_ID, RELEASED_DAY, RELEASED_DAY, CAPACITY);
+                Scratch.check(ledger.get(PRODUCT_ID, RELEASED_DAY, CAPACITY) == CAPACITY - 2,
+                        "two held units are taken from the default capacity");
+                Scratch.check(ledger.minAvailable(PRODUCT_ID, RELEASED_DAY, COMMITTED_DAY, CAPACITY) == CAPACITY - 2,
+                        "range minimum counts held units on days without an entry");
+                Scratch.check(!ledger.has(PRODUCT_ID, RELEASED_DAY), "held day has no entry");
+                first.release();
+                second.release();
+                Scratch.check(!ledger.has(PRODUCT_ID, RELEASED_DAY), "released day has no entry");
+                Scratch.check(ledger.get(PRODUCT_ID, RELEASED_DAY, CAPACITY) == CAPACITY,
+                        "released day is back at its default capacity");
+                Scratch.check(ledger.release(PRODUCT_ID, RELEASED_DAY, CAPACITY) == AvailabilityLedger.Release.NOT_BOOKED,
+                        "releasing a unit on the released day reports NOT_BOOKED");
+
+                InventoryHold committed = ledger.hold(PRODUCT_ID, COMMITTED_DAY, COMMITTED_DAY, CAPACITY);
+                committed.commit(0);
+                Scratch.check(ledger.get(PRODUCT_ID, COMMITTED_DAY, CAPACITY) == CAPACITY - 1,
+                        "committed hold leaves the default capacity less one");
+                break;
+            case "restart":
+                Scratch.check(!ledger.has(PRODUCT_ID, RELEASED_DAY), "released day has no entry after a restart");
+                Scratch.check(ledger.get(PRODUCT_ID, COMMITTED_DAY, CAPACITY) == CAPACITY - 1,
+                        "committed day keeps its booking after a restart");
+                break;
+            default:
+                throw new IllegalArgumentException(args[0]);
+        }
+        Scratch.exitWithResult();
+    }
+}
@@ -0,0 +1,96 @@
+package bench;
+
+import products.Hotel;
+import services.MappedCsvReader;
+import services.TravelParser;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures the heap kept by the hotel catalog for 1,000,000 generated hotels with 500 names,
+ * 220 cities and 3 room types, each in a fresh JVM after full collections:
+ * <ul>
+ *     <li>a plain HashMap of hotels with a String per field, as the CSV parse built before;</li>
+ *     <li>the catalog TravelParser loads from the CSV, with its ID registry and city index;</li>
+ *     <li>the same catalog loaded from the snapshot written by the previous step.</li>
+ * </ul>
+ * Run from the project directory: {@code java -cp <classes> bench.HotelHeapBench}
+ */
+public class HotelHeapBench {
+    private static final String HOTELS_CSV = "datasets/FinalKU_Travel_Agency_Dataset_Hotels.csv";
+    private static final int HOTELS = 1000000;
+    private static Object kept;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            writeHotels(dir);
+            for (String step : new String[]{"plain", "csv", "snapshot"}) {
+                Scratch.check(Scratch.run(dir, HotelHeapBench.class, step) == 0, "heap of the " + step + " catalog");
+            }
+            Scratch.exitWithResult();
+        }
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long before = usedAfterGc();
+        if (args[0].equals("plain")) {
+            kept = parsePlain();
+        } else {
+            TravelParser.parseHotels();
+            kept = TravelParser.getHotelsDict();
+        }
+        long after = usedAfterGc();
+        report.printf("%s: %.0f MB for %d hotels%n", args[0], (after - before) / 1e6, ((Map<?, ?>) kept).size());
+        Scratch.check(((Map<?, ?>) kept).size() == HOTELS, args[0] + " catalog has every hotel");
+        Scratch.exitWithResult();
+    }
+
+    private static void writeHotels(Path dir) throws Exception {
+        Random random = new Random(6);
+        String[] roomTypes = {"Standard", "Deluxe", "Suite"};
+        try (BufferedWriter writer = Files.newBufferedWriter(dir.resolve(HOTELS_CSV), StandardCharsets.UTF_8)) {
+            writer.write("Hotel Name,City,Room Type,Available Rooms,Price per Night ($),Distance to Airport (km)");
+            writer.newLine();
+            for (int i = 0; i < HOTELS; i++) {
+                writer.write(String.format("Hotel %d,%s,%s,%d,%.2f,%.2f", random.nextInt(500), Scratch.city(random.nextInt(220)),
+                        roomTypes[random.nextInt(3)], 1 + random.nextInt(30), 50 + random.nextInt(100000) / 100.0,
+                        1 + random.nextInt(5000) / 100.0));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Builds the hotels the way the CSV parse did before strings were shared.
+     */
+    private static HashMap<Integer, Hotel> parsePlain() throws Exception {
+        HashMap<Integer, Hotel> hotels = new HashMap<>();
+        int uniqueId = 100000;
+        try (MappedCsvReader reader = new MappedCsvReader(HOTELS_CSV)) {
+            reader.nextRow();
+            while (reader.nextRow()) {
+                hotels.put(uniqueId, new Hotel(reader.getString(0), reader.getString(1), reader.getString(2),
+                        reader.getInt(3), reader.getDouble(4), reader.getDouble(5), uniqueId));
+                uniqueId++;
+            }
+        }
+        return hotels;
+    }
+
+    private static long usedAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
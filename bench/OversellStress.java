@@ -0,0 +1,171 @@
+package bench;
+
+import products.Flight;
+import products.InventoryHold;
+import products.WriteBehindFlusher;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress test for the per-product availability locks: many threads book, hold, release and
+ * cancel seats on the same flight date at once, and the seats left must never go below zero
+ * or drift from the number of bookings. A second run after a restart checks that what was
+ * written matches what was in memory.
+ * <p>
+ * Run from the project directory: {@code java -cp <classes> bench.OversellStress}
+ */
+public class OversellStress {
+    private static final int FLIGHT_ID = 200003;
+    private static final LocalDate CONTENDED_DATE = LocalDate.of(2034, 6, 1);
+    private static final LocalDate ACCOUNTED_DATE = LocalDate.of(2034, 6, 2);
+    private static final Path STATE_FILE = Paths.get("oversell-state.txt");
+    // Holds here are committed without a reservation; the restart step never rolls them back.
+    private static final int NO_RESERVATION = 0;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            Scratch.check(Scratch.run(dir, OversellStress.class, "stress") == 0, "stress run");
+            Scratch.check(Scratch.run(dir, OversellStress.class, "restart") == 0, "state after restart");
+            Scratch.exitWithResult();
+        }
+        // Bookings and cancellations report every call on standard output.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Flight.preloadAvailability();
+        Flight flight = Flight.retrieveFlight(FLIGHT_ID);
+        if (args[0].equals("stress")) {
+            stress(flight);
+        } else {
+            List<String> state = Files.readAllLines(STATE_FILE);
+            Scratch.check(flight.getAvailabilityForDate(CONTENDED_DATE) == Integer.parseInt(state.get(0)),
+                    "seats on " + CONTENDED_DATE + " after restart equal " + state.get(0));
+            Scratch.check(flight.getAvailabilityForDate(ACCOUNTED_DATE) == Integer.parseInt(state.get(1)),
+                    "seats on " + ACCOUNTED_DATE + " after restart equal " + state.get(1));
+        }
+        Scratch.exitWithResult();
+    }
+
+    private static void stress(Flight flight) throws Exception {
+        int threads = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        int capacity = flight.getAvailabilityForDate(CONTENDED_DATE);
+
+        // 64 threads race for the same seats.
+        AtomicInteger booked = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        List<Callable<Void>> racers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            racers.add(() -> {
+                go.await();
+                for (int i = 0; i < 20; i++) {
+                    InventoryHold hold = flight.hold(CONTENDED_DATE);
+                    if (hold != null) {
+                        hold.commit(NO_RESERVATION);
+                        booked.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        List<Future<Void>> running = submitAll(pool, racers);
+        go.countDown();
+        awaitAll(running);
+        Scratch.check(booked.get() == Math.min(capacity, threads * 20),
+                threads * 20 + " attempts on " + capacity + " seats booked " + booked.get());
+        Scratch.check(flight.getAvailabilityForDate(CONTENDED_DATE) == capacity - booked.get(),
+                "seats left " + flight.getAvailabilityForDate(CONTENDED_DATE) + " = capacity - booked");
+
+        // Bookings and cancellations churn on the same date; seats must stay within bounds.
+        AtomicInteger lowest = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicInteger highest = new AtomicInteger(Integer.MIN_VALUE);
+        List<Callable<Void>> churners = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            churners.add(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 2000; i++) {
+                    if (random.nextBoolean()) {
+                        InventoryHold hold = flight.hold(CONTENDED_DATE);
+                        if (hold != null) {
+                            hold.commit(NO_RESERVATION);
+                        }
+                    } else {
+                        flight.cancelBook(CONTENDED_DATE);
+                    }
+                    int left = flight.getAvailabilityForDate(CONTENDED_DATE);
+                    lowest.accumulateAndGet(left, Math::min);
+                    highest.accumulateAndGet(left, Math::max);
+                }
+                return null;
+            });
+        }
+        awaitAll(submitAll(pool, churners));
+        Scratch.check(lowest.get() >= 0 && highest.get() <= capacity,
+                threads * 2000 + " book/cancel calls kept seats within [" + lowest.get() + ", " + highest.get()
+                        + "] of 0.." + capacity);
+
+        // Holds are committed or released at random; the seats left must account for every commit.
+        int accountedCapacity = flight.getAvailabilityForDate(ACCOUNTED_DATE);
+        AtomicInteger committed = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+        List<Callable<Void>> holders = new ArrayList<>();
+        for (int t = 0; t < 32; t++) {
+            int seed = 1000 + t;
+            holders.add(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 3000; i++) {
+                    InventoryHold hold = flight.hold(ACCOUNTED_DATE);
+                    if (hold == null) {
+                        continue;
+                    }
+                    if (random.nextInt(1200) == 0) {
+                        hold.commit(NO_RESERVATION);
+                        committed.incrementAndGet();
+                    } else {
+                        hold.release();
+                        released.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        awaitAll(submitAll(pool, holders));
+        pool.shutdown();
+        int accountedLeft = flight.getAvailabilityForDate(ACCOUNTED_DATE);
+        Scratch.check(accountedLeft == accountedCapacity - committed.get(),
+                committed.get() + " commits and " + released.get() + " releases left " + accountedLeft
+                        + " of " + accountedCapacity + " seats");
+
+        WriteBehindFlusher.flushAll();
+        Files.write(STATE_FILE, List.of(String.valueOf(flight.getAvailabilityForDate(CONTENDED_DATE)),
+                String.valueOf(accountedLeft)));
+    }
+
+    private static List<Future<Void>> submitAll(ExecutorService pool, List<Callable<Void>> tasks) {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            futures.add(pool.submit(task));
+        }
+        return futures;
+    }
+
+    private static void awaitAll(List<Future<Void>> futures) throws Exception {
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+    }
+}
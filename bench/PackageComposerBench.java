@@ -0,0 +1,174 @@
+package bench;
+
+import products.Flight;
+import products.Hotel;
+import products.Taxi;
+import services.Package;
+import services.PackageComposer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Measures {@link PackageComposer#cheapest} on a large catalog: 10,000 Paris hotels and 1,000
+ * Istanbul to Paris flights are added to a scratch copy of the datasets, and the cheapest taxi
+ * is booked out at the arrival of every other flight so the composer has to skip combinations.
+ * The composer is timed for k = 1, 10, 100 and 1000, and its costs are compared with those
+ * found by pricing every hotel, flight and taxi combination.
+ * <p>
+ * Run from the project directory: {@code java -cp <classes> bench.PackageComposerBench}
+ */
+public class PackageComposerBench {
+    private static final int HOTELS = 10000;
+    private static final int FLIGHTS = 1000;
+    private static final int[] K = {1, 10, 100, 1000};
+    private static final LocalDate DATE_START = LocalDate.of(2026, 11, 20);
+    private static final LocalDate DATE_END = DATE_START.plusDays(4);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            generate(dir);
+            Scratch.check(Scratch.run(dir, PackageComposerBench.class, "measure") == 0, "composer on " + HOTELS
+                    + " hotels and " + FLIGHTS + " flights");
+            Scratch.exitWithResult();
+        }
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        measure(report);
+        Scratch.exitWithResult();
+    }
+
+    private static void generate(Path dir) throws Exception {
+        Random random = new Random(24);
+        try (BufferedWriter writer = appendTo(dir.resolve("datasets/FinalKU_Travel_Agency_Dataset_Hotels.csv"))) {
+            for (int i = 0; i < HOTELS; i++) {
+                writer.write(String.format("GenHotel%d,Paris,Standard,%d,%.2f,%.2f", i, 1 + random.nextInt(30),
+                        50 + random.nextInt(100000) / 100.0, 1 + random.nextInt(5000) / 100.0));
+                writer.newLine();
+            }
+        }
+        try (BufferedWriter writer = appendTo(dir.resolve("datasets/FinalKU_Travel_Agency_Dataset_Flights.csv"))) {
+            for (int i = 0; i < FLIGHTS; i++) {
+                LocalTime departure = LocalTime.of(random.nextInt(24), random.nextInt(4) * 15);
+                LocalTime arrival = departure.plusMinutes(180 + random.nextInt(13) * 15);
+                writer.write(String.format("FL%d,GenAir,Istanbul,Paris,%d:%02d,%d:%02d,Economy,%.2f,%d,,,,,,", 10000 + i,
+                        departure.getHour(), departure.getMinute(), arrival.getHour(), arrival.getMinute(),
+                        100 + random.nextInt(190000) / 100.0, 1 + random.nextInt(100)));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Opens a dataset for appending rows, first ending its last row if it has no line break.
+     */
+    private static BufferedWriter appendTo(Path csv) throws IOException {
+        byte[] content = Files.readAllBytes(csv);
+        BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        if (content.length > 0 && content[content.length - 1] != '\n') {
+            writer.newLine();
+        }
+        return writer;
+    }
+
+    private static void measure(PrintStream report) throws Exception {
+        Hotel.preloadAvailability();
+        Flight.preloadAvailability();
+        Taxi.preloadAvailability();
+        report.println("Paris hotels " + Hotel.selectByCity("Paris").size() + ", Istanbul to Paris flights "
+                + Flight.selectByCity("Paris", "Istanbul").size() + ", Paris taxis " + Taxi.selectByCity("Paris").size());
+
+        Taxi cheapest = Collections.min(Taxi.selectByCity("Paris"), Comparator.comparingDouble(Taxi::getBaseFare));
+        int held = 0;
+        for (Flight flight : Flight.selectByCity("Paris", "Istanbul")) {
+            if (flight.getId() % 2 == 0) {
+                LocalDateTime pickup = pickupOf(flight);
+                while (cheapest.hold(pickup.minusMinutes(5), pickup.plusMinutes(70)) != null) {
+                    held++;
+                }
+            }
+        }
+        report.println("held " + held + " rides of the cheapest taxi");
+
+        long start = System.nanoTime();
+        List<Double> expected = bruteForce(K[K.length - 1]);
+        report.printf("pricing every combination: %.1f s%n", (System.nanoTime() - start) / 1e9);
+
+        for (int k : K) {
+            ArrayList<Package> packages = null;
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < 3; run++) {
+                long before = System.nanoTime();
+                packages = PackageComposer.cheapest("Istanbul", "Paris", DATE_START, DATE_END, k);
+                best = Math.min(best, System.nanoTime() - before);
+            }
+            boolean same = packages.size() == Math.min(k, expected.size());
+            for (int i = 0; same && i < packages.size(); i++) {
+                Package pck = packages.get(i);
+                // The same prices added in another order may differ in the last bits.
+                same = Math.abs(pck.getHotelCost() + pck.getFlightCost() + pck.getTaxiFare() - expected.get(i)) < 1e-6;
+            }
+            report.printf("k=%d: %.1f ms%n", k, best / 1e6);
+            Scratch.check(same, "k=" + k + " costs match pricing every combination");
+        }
+    }
+
+    /**
+     * Prices every feasible combination, keeping only the k cheapest costs.
+     */
+    private static List<Double> bruteForce(int k) {
+        long nights = ChronoUnit.DAYS.between(DATE_START, DATE_END);
+        ArrayList<Hotel> hotels = Hotel.availableRoomsListMaker(DATE_START, DATE_END, Hotel.selectByCity("Paris"));
+        ArrayList<Flight> flights = Flight.availableSeatsListMaker(DATE_START, Flight.selectByCity("Paris", "Istanbul"));
+        ArrayList<Taxi> taxis = Taxi.selectByCity("Paris");
+        HashMap<String, Boolean> feasible = new HashMap<>();
+        PriorityQueue<Double> kept = new PriorityQueue<>(Comparator.reverseOrder());
+        for (Hotel hotel : hotels) {
+            int minutes = Taxi.travelMinutes(hotel);
+            for (Flight flight : flights) {
+                LocalDateTime pickup = pickupOf(flight);
+                for (Taxi taxi : taxis) {
+                    double cost = hotel.getPricePerNight() * nights + flight.getPrice() + taxi.getBaseFare()
+                            + taxi.getPerKmRate() * hotel.getDistanceToAirport();
+                    if (kept.size() == k && cost >= kept.peek()) {
+                        continue;
+                    }
+                    if (!feasible.computeIfAbsent(taxi.getId() + "@" + pickup + "+" + minutes,
+                            key -> taxi.getMinAvailability(pickup, pickup.plusMinutes(minutes)) > 0)) {
+                        continue;
+                    }
+                    kept.add(cost);
+                    if (kept.size() > k) {
+                        kept.poll();
+                    }
+                }
+            }
+        }
+        ArrayList<Double> costs = new ArrayList<>(kept);
+        Collections.sort(costs);
+        return costs;
+    }
+
+    private static LocalDateTime pickupOf(Flight flight) {
+        return LocalDateTime.of(flight.isDayChange() ? DATE_START.plusDays(1) : DATE_START, flight.getArrivalTime());
+    }
+}
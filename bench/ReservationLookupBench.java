@@ -0,0 +1,85 @@
+package bench;
+
+import services.PackageManager;
+import services.Reservation;
+import services.ReservationsManagers;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures reservation lookups with a large reservations file: 100,000 reservations over the
+ * existing packages are written to a scratch copy, then a fresh JVM times the first lookup,
+ * which loads the file, and 100,000 random lookups after it.
+ * <p>
+ * Run from the project directory: {@code java -cp <classes> bench.ReservationLookupBench [reservations]}
+ */
+public class ReservationLookupBench {
+    private static final int FIRST_ID = 500000;
+    private static final Path RESERVATIONS_FILE = Paths.get("services/reservations.txt");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            String count = args.length == 0 ? "100000" : args[0];
+            Path dir = Scratch.copyData();
+            Scratch.check(Scratch.run(dir, ReservationLookupBench.class, count, "generate") == 0, "generate " + count + " reservations");
+            Scratch.check(Scratch.run(dir, ReservationLookupBench.class, count, "measure") == 0, "lookups");
+            Scratch.exitWithResult();
+        }
+        int count = Integer.parseInt(args[0]);
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        if (args[1].equals("generate")) {
+            generate(count);
+        } else {
+            measure(count, report);
+        }
+        Scratch.exitWithResult();
+    }
+
+    private static void generate(int count) throws Exception {
+        List<Integer> packageIds = new ArrayList<>(PackageManager.getActivePackages().keySet());
+        Random random = new Random(1);
+        try (BufferedWriter writer = Files.newBufferedWriter(RESERVATIONS_FILE)) {
+            for (int i = 0; i < count; i++) {
+                writer.write((FIRST_ID + i) + "," + packageIds.get(random.nextInt(packageIds.size())) + ","
+                        + (random.nextInt(4) == 0 ? "cancelled" : "confirmed") + ",2026-05-10,2026-05-16,60000"
+                        + random.nextInt(3));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void measure(int count, PrintStream report) {
+        long start = System.nanoTime();
+        Scratch.check(ReservationsManagers.getReservation(FIRST_ID) != null, "first reservation found");
+        long firstNanos = System.nanoTime() - start;
+
+        Random random = new Random(2);
+        int lookups = 100000;
+        long[] nanos = new long[lookups];
+        int missing = 0;
+        for (int i = 0; i < lookups; i++) {
+            int id = FIRST_ID + random.nextInt(count);
+            long before = System.nanoTime();
+            Reservation reservation = ReservationsManagers.getReservation(id);
+            nanos[i] = System.nanoTime() - before;
+            if (reservation == null) {
+                missing++;
+            }
+        }
+        Scratch.check(missing == 0, lookups + " random lookups all found");
+        Arrays.sort(nanos);
+        report.printf("%d reservations: first call %.1f ms; %d lookups: median %.2f us, p99 %.2f us, max %.2f us%n",
+                count, firstNanos / 1e6, lookups, nanos[lookups / 2] / 1e3, nanos[lookups * 99 / 100] / 1e3,
+                nanos[lookups - 1] / 1e3);
+    }
+}
@@ -0,0 +1,198 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Shared setup for the checks and benchmarks in this package. They are plain main classes, run
+ * from the project directory. Each one copies the data files into a scratch directory and runs
+ * its steps there in child JVMs, so the project's own data is never changed and each step starts
+ * the way the application does after a restart.
+ */
+public class Scratch {
+    private static final String[] DATA_DIRS = {"products", "datasets", "services", "databases", "logs"};
+    private static final String[] CITIES = {
+            "Istanbul", "Ankara", "Paris", "Rome", "Berlin", "Madrid", "Lisbon", "Vienna", "Prague", "Athens",
+            "Dublin", "Oslo", "Zurich", "Dubai", "Budapest", "Brussels", "Helsinki", "Amsterdam", "Stockholm", "Copenhagen"
+    };
+    private static final String[] HOTEL_NAMES = {"Marriott", "Hilton", "Ibis", "Novotel", "Radisson", "Sheraton", "Holiday Inn"};
+    private static final String[] ROOM_TYPES = {"Standard", "Deluxe", "Suite"};
+    private static final String[] AIRLINES = {"Turkish Airlines", "Pegasus Airlines", "Lufthansa", "Air France", "KLM"};
+    private static final String[] TICKET_CLASSES = {"Economy", "Business", "First Class"};
+    private static int failures;
+
+    private Scratch() {
+    }
+
+    /**
+     * Copies the data files of the project into a new scratch directory. Sources and catalog
+     * snapshots are left out.
+     *
+     * @return The scratch directory.
+     * @throws IOException If a file cannot be copied.
+     */
+    public static Path copyData() throws IOException {
+        Path target = Files.createTempDirectory("kutravel-bench");
+        for (String dir : DATA_DIRS) {
+            Path source = Paths.get(dir);
+            if (!Files.isDirectory(source)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(source)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (Files.isDirectory(file) || name.endsWith(".java") || name.endsWith(".snapshot")) {
+                        continue;
+                    }
+                    Path copy = target.resolve(file.toString());
+                    Files.createDirectories(copy.getParent());
+                    Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Replaces the hotels dataset of a scratch directory with generated rows over twenty cities.
+     *
+     * @param dir   The scratch directory.
+     * @param count Number of hotels.
+     * @throws IOException If the dataset cannot be written.
+     */
+    public static void writeHotels(Path dir, int count) throws IOException {
+        writeHotels(dir, count, CITIES.length);
+    }
+
+    /**
+     * Replaces the hotels dataset of a scratch directory with generated rows over the given
+     * number of cities, the twenty of the shipped datasets first, then "City 21" and so on.
+     *
+     * @param dir    The scratch directory.
+     * @param count  Number of hotels.
+     * @param cities Number of cities.
+     * @throws IOException If the dataset cannot be written.
+     */
+    public static void writeHotels(Path dir, int count, int cities) throws IOException {
+        Random random = new Random(count);
+        try (BufferedWriter writer = Files.newBufferedWriter(dir.resolve("datasets/FinalKU_Travel_Agency_Dataset_Hotels.csv"),
+                StandardCharsets.UTF_8)) {
+            writer.write("Hotel Name,City,Room Type,Available Rooms,Price per Night ($),Distance to Airport (km)");
+            writer.newLine();
+            for (int i = 0; i < count; i++) {
+                writer.write(String.format("%s %d,%s,%s,%d,%.2f,%.2f", HOTEL_NAMES[random.nextInt(HOTEL_NAMES.length)], i,
+                        city(random.nextInt(cities)), ROOM_TYPES[random.nextInt(ROOM_TYPES.length)],
+                        1 + random.nextInt(30), 50 + random.nextInt(100000) / 100.0, 1 + random.nextInt(5000) / 100.0));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Replaces the flights dataset of a scratch directory with generated rows over twenty cities,
+     * one in five of them a flight with a stopover. The header keeps the byte order mark of the
+     * shipped dataset.
+     *
+     * @param dir   The scratch directory.
+     * @param count Number of flights.
+     * @throws IOException If the dataset cannot be written.
+     */
+    public static void writeFlights(Path dir, int count) throws IOException {
+        Random random = new Random(count);
+        try (BufferedWriter writer = Files.newBufferedWriter(dir.resolve("datasets/FinalKU_Travel_Agency_Dataset_Flights.csv"),
+                StandardCharsets.UTF_8)) {
+            writer.write("\uFEFFFlight ID,Airline,Departure City,Arrival City,Departure Time,Arrival Time,Ticket Class,"
+                    + "Price ($),Available Seats,Stopover City,Final Arrival City,Leg 1 Departure Time,Leg 1 Arrival Time,"
+                    + "Leg 2 Departure Time,Leg 2 Arrival Time");
+            writer.newLine();
+            for (int i = 0; i < count; i++) {
+                String from = CITIES[random.nextInt(CITIES.length)];
+                String to = CITIES[random.nextInt(CITIES.length)];
+                String head = String.format("FL%d,%s,%s,", 10000 + i, AIRLINES[random.nextInt(AIRLINES.length)], from);
+                String tail = String.format("%s,%.2f,%d,", TICKET_CLASSES[random.nextInt(TICKET_CLASSES.length)],
+                        100 + random.nextInt(190000) / 100.0, 1 + random.nextInt(100));
+                int departure = random.nextInt(24 * 4) * 15;
+                if (random.nextInt(5) == 0) {
+                    String stopover = CITIES[random.nextInt(CITIES.length)];
+                    writer.write(head + ",,," + tail + stopover + "," + to + "," + time(departure) + "," + time(departure + 120)
+                            + "," + time(departure + 180) + "," + time(departure + 300));
+                } else {
+                    writer.write(head + to + "," + time(departure) + "," + time(departure + 180 + random.nextInt(13) * 15)
+                            + "," + tail + ",,,,,");
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * @return The name of a generated city.
+     */
+    public static String city(int index) {
+        return index < CITIES.length ? CITIES[index] : "City " + (index + 1);
+    }
+
+    private static String time(int minutes) {
+        minutes %= 24 * 60;
+        return (minutes / 60) + ":" + String.format("%02d", minutes % 60);
+    }
+
+    /**
+     * Runs a main class in a child JVM with the scratch directory as its working directory,
+     * sharing this process's console, and waits for it to exit.
+     *
+     * @param dir  The scratch directory.
+     * @param main The class to run.
+     * @param args Its arguments.
+     * @return The exit status of the child.
+     * @throws IOException If the child cannot be started.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public static int run(Path dir, Class<?> main, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(absoluteClassPath());
+        command.add(main.getName());
+        command.addAll(List.of(args));
+        return new ProcessBuilder(command).directory(dir.toFile()).inheritIO().start().waitFor();
+    }
+
+    /**
+     * Reports one checked condition and remembers failures for {@link #exitWithResult()}.
+     *
+     * @param passed Whether the condition holds.
+     * @param what   What was checked.
+     */
+    public static void check(boolean passed, String what) {
+        System.err.println((passed ? "PASS: " : "FAIL: ") + what);
+        if (!passed) {
+            failures++;
+        }
+    }
+
+    /**
+     * Exits with status 0 if every check passed, and 1 otherwise.
+     */
+    public static void exitWithResult() {
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static String absoluteClassPath() {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(Paths.get(entry).toAbsolutePath().toString());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+}
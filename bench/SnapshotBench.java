@@ -0,0 +1,103 @@
+package bench;
+
+import products.Flight;
+import products.Hotel;
+import services.CatalogSnapshot;
+import services.TravelParser;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compares loading the catalogs from their binary snapshots with parsing the CSVs, on 500,000
+ * generated hotels and 300,000 generated flights, each load in a fresh JVM as at startup:
+ * <ul>
+ *     <li>the first load parses the CSVs and writes the snapshots;</li>
+ *     <li>the second loads the snapshots and must build the same catalogs;</li>
+ *     <li>after a hotel row is edited in place, keeping the file size, the third load must see the edit.</li>
+ * </ul>
+ * Run from the project directory: {@code java -cp <classes> bench.SnapshotBench}
+ */
+public class SnapshotBench {
+    private static final String HOTELS_CSV = "datasets/FinalKU_Travel_Agency_Dataset_Hotels.csv";
+    private static final String FLIGHTS_CSV = "datasets/FinalKU_Travel_Agency_Dataset_Flights.csv";
+    private static final Path STATE_FILE = Paths.get("snapshot-state.txt");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            Scratch.writeHotels(dir, 500000);
+            Scratch.writeFlights(dir, 300000);
+            Scratch.check(Scratch.run(dir, SnapshotBench.class, "csv") == 0, "load from the CSVs");
+            Scratch.check(Scratch.run(dir, SnapshotBench.class, "snapshot") == 0, "load from the snapshots");
+
+            Path hotels = dir.resolve(HOTELS_CSV);
+            FileTime modified = Files.getLastModifiedTime(hotels);
+            List<String> rows = Files.readAllLines(hotels, StandardCharsets.UTF_8);
+            String[] first = rows.get(1).split(",");
+            first[2] = first[2].substring(0, first[2].length() - 1) + "X";
+            rows.set(1, String.join(",", first));
+            Files.write(hotels, rows, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(hotels, FileTime.fromMillis(modified.toMillis() + 1000));
+            Scratch.check(Scratch.run(dir, SnapshotBench.class, "edited", first[2]) == 0, "load after an edit");
+            Scratch.exitWithResult();
+        }
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        long start = System.nanoTime();
+        TravelParser.parseHotels();
+        TravelParser.parseFlights();
+        long nanos = System.nanoTime() - start;
+        String digest = digest();
+
+        switch (args[0]) {
+            case "csv":
+                report.printf("CSV parse and snapshot write: %.2f s%n", nanos / 1e9);
+                Scratch.check(Files.exists(CatalogSnapshot.snapshotPath(HOTELS_CSV))
+                        && Files.exists(CatalogSnapshot.snapshotPath(FLIGHTS_CSV)), "snapshots written");
+                Files.writeString(STATE_FILE, digest);
+                break;
+            case "snapshot":
+                report.printf("snapshot load: %.2f s%n", nanos / 1e9);
+                Scratch.check(digest.equals(Files.readString(STATE_FILE)), "snapshot catalogs match the CSV parse");
+                break;
+            case "edited":
+                report.printf("load after the edit: %.2f s%n", nanos / 1e9);
+                Scratch.check(TravelParser.getHotelsDict().get(100000).getRoomType().equals(args[1]),
+                        "edited room type " + args[1] + " seen");
+                break;
+            default:
+                throw new IllegalArgumentException(args[0]);
+        }
+        Scratch.exitWithResult();
+    }
+
+    /**
+     * Folds every field of every hotel and flight, in ID order, into one value.
+     */
+    private static String digest() {
+        long hash = 0;
+        int hotels = TravelParser.getHotelsDict().size();
+        for (int id = 100000; id < 100000 + hotels; id++) {
+            Hotel hotel = TravelParser.getHotelsDict().get(id);
+            hash = hash * 31 + Objects.hash(hotel.getName(), hotel.getCity(), hotel.getRoomType(),
+                    hotel.getAvailableCount(), hotel.getPricePerNight(), hotel.getDistanceToAirport());
+        }
+        int flights = TravelParser.getFlightsDict().size();
+        for (int id = 200000; id < 200000 + flights; id++) {
+            Flight flight = TravelParser.getFlightsDict().get(id);
+            hash = hash * 31 + Objects.hash(flight.getAirline(), flight.getDepartureCity(), flight.getArrivalCity(),
+                    flight.getStopoverCity(), flight.getDepartureTime(), flight.getArrivalTime(),
+                    flight.getTicketClass(), flight.getPrice(), flight.getAvailableCount());
+        }
+        return hotels + " hotels, " + flights + " flights, " + hash;
+    }
+}
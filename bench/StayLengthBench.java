@@ -0,0 +1,90 @@
+package bench;
+
+import products.Hotel;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Measures booking and cancelling hotel stays of 1, 7 and 21 nights, once night by night with
+ * {@link Hotel#book(LocalDate)}, which persists every night, and once as one range with
+ * {@link Hotel#bookRange(LocalDate, LocalDate)}, which persists the stay with a single write.
+ * Each figure is the mean over 200 stays on separate dates, after a warm-up. Every stay must take
+ * exactly one room each night, and cancelling it with {@link Hotel#cancelRange(LocalDate, LocalDate)}
+ * must give them back.
+ * <p>
+ * Run from the project directory: {@code java -cp <classes> bench.StayLengthBench}
+ */
+public class StayLengthBench {
+    private static final int HOTEL_ID = 100016;
+    private static final int STAYS = 200;
+    private static final int[] NIGHTS = {1, 7, 21};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            Scratch.check(Scratch.run(dir, StayLengthBench.class, "measure") == 0, "stays of 1, 7 and 21 nights");
+            Scratch.exitWithResult();
+        }
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Hotel.preloadAvailability();
+        Hotel hotel = Hotel.retrieveHotel(HOTEL_ID);
+
+        LocalDate first = LocalDate.of(2035, 1, 1);
+        measure(hotel, first, 7, false);
+        measure(hotel, first, 7, true);
+        report.println("nights  per-night book  bookRange  cancelRange");
+        for (int nights : NIGHTS) {
+            first = first.plusDays(STAYS * 30L);
+            long[] perNight = measure(hotel, first, nights, false);
+            first = first.plusDays(STAYS * 30L);
+            long[] range = measure(hotel, first, nights, true);
+            report.printf("%-7d %9.2f ms %8.2f ms %9.2f ms%n", nights, perNight[0] / 1e6 / STAYS,
+                    range[0] / 1e6 / STAYS, range[1] / 1e6 / STAYS);
+        }
+        Scratch.exitWithResult();
+    }
+
+    /**
+     * Books and then cancels STAYS stays of the given length, each starting 30 days after the last.
+     *
+     * @return The total time spent booking and the total time spent cancelling.
+     */
+    private static long[] measure(Hotel hotel, LocalDate first, int nights, boolean asRange) {
+        long booking = 0;
+        long cancelling = 0;
+        boolean correct = true;
+        for (int stay = 0; stay < STAYS; stay++) {
+            LocalDate start = first.plusDays(stay * 30L);
+            LocalDate end = start.plusDays(nights - 1);
+            int rooms = hotel.getMinAvailability(start, end);
+
+            long before = System.nanoTime();
+            if (asRange) {
+                hotel.bookRange(start, end);
+            } else {
+                for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                    hotel.book(date);
+                }
+            }
+            long booked = System.nanoTime();
+            boolean taken = true;
+            for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                taken &= hotel.getAvailabilityForDate(date) == rooms - 1;
+            }
+
+            long cancelStart = System.nanoTime();
+            hotel.cancelRange(start, end);
+            long cancelled = System.nanoTime();
+            booking += booked - before;
+            cancelling += cancelled - cancelStart;
+            correct &= taken && hotel.getMinAvailability(start, end) == rooms;
+        }
+        Scratch.check(correct, STAYS + " " + nights + "-night stays " + (asRange ? "as ranges" : "night by night")
+                + " took and gave back one room each night");
+        return new long[]{booking, cancelling};
+    }
+}
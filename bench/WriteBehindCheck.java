@@ -0,0 +1,119 @@
+package bench;
+
+import Users.Customer;
+import core.App;
+import databases.CustomerDB;
+import products.Hotel;
+import products.Taxi;
+import products.WriteBehindFlusher;
+import services.PackageManager;
+import services.Reservation;
+import services.ReservationsManagers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Checks the durability rules documented on {@link WriteBehindFlusher}, each time by making
+ * a change in one JVM and looking for it in the next:
+ * <ul>
+ *     <li>queued changes are written by the shutdown hook when the process ends through System.exit;</li>
+ *     <li>queued changes are lost if the process is halted before a flush, which is the documented window;</li>
+ *     <li>{@link WriteBehindFlusher#flushAll()} puts queued changes on disk before a reservation is
+ *     written, so both survive a halt right after the reservation.</li>
+ * </ul>
+ * Run from the project directory: {@code java -cp <classes> bench.WriteBehindCheck}
+ */
+public class WriteBehindCheck {
+    private static final int HOTEL_ID = 100016;
+    private static final int TAXI_ID = 300005;
+    private static final int PACKAGE_ID = 400007;
+    private static final String CUSTOMER_ID = "600002";
+    private static final LocalDate NIGHT = LocalDate.of(2031, 5, 1);
+    private static final LocalDateTime PICKUP = LocalDateTime.of(2031, 5, 1, 10, 0);
+    private static final LocalDateTime ARRIVAL = PICKUP.plusMinutes(20);
+    private static final Path HOTEL_JOURNAL = Paths.get("products/hotelavailability.journal");
+    private static final Path STATE_FILE = Paths.get("write-behind-state.txt");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            Path dir = Scratch.copyData();
+            for (String step : new String[]{"exit", "after-exit", "halt", "after-halt", "barrier", "after-barrier"}) {
+                Scratch.check(Scratch.run(dir, WriteBehindCheck.class, step) == 0, "step " + step);
+            }
+            Scratch.exitWithResult();
+        }
+        // Bookings and reservations report every call on standard output.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Hotel.preloadAvailability();
+        Taxi.preloadAvailability();
+        Hotel hotel = Hotel.retrieveHotel(HOTEL_ID);
+        Taxi taxi = Taxi.retrieveTaxi(TAXI_ID);
+        int rooms = hotel.getMinAvailability(NIGHT, NIGHT);
+        int cars = taxi.getMinAvailability(PICKUP, ARRIVAL);
+        List<String> before = args[0].startsWith("after-") ? Files.readAllLines(STATE_FILE) : null;
+
+        switch (args[0]) {
+            case "exit":
+                WriteBehindFlusher.setEnabled(true);
+                long journalRows = journalRows();
+                hotel.bookRange(NIGHT, NIGHT);
+                taxi.reserve(PICKUP, ARRIVAL);
+                Scratch.check(journalRows() == journalRows, "booking returns before its rows are written");
+                Files.write(STATE_FILE, List.of(String.valueOf(rooms), String.valueOf(cars)));
+                System.exit(0);
+                break;
+            case "after-exit":
+                Scratch.check(rooms == Integer.parseInt(before.get(0)) - 1, "hotel booking survived System.exit");
+                Scratch.check(cars == Integer.parseInt(before.get(1)) - 1, "taxi booking survived System.exit");
+                break;
+            case "halt":
+                WriteBehindFlusher.setEnabled(true);
+                Files.write(STATE_FILE, List.of(String.valueOf(rooms)));
+                hotel.bookRange(NIGHT, NIGHT);
+                Runtime.getRuntime().halt(0);
+                break;
+            case "after-halt":
+                Scratch.check(rooms == Integer.parseInt(before.get(0)),
+                        "hotel booking queued when the process was halted is lost, as documented");
+                break;
+            case "barrier":
+                WriteBehindFlusher.setEnabled(true);
+                hotel.bookRange(NIGHT, NIGHT);
+                long queuedRows = journalRows();
+                WriteBehindFlusher.flushAll();
+                Scratch.check(journalRows() > queuedRows, "flushAll wrote the queued rows");
+                App.user = CustomerDB.retrieveCustomer(CUSTOMER_ID);
+                Reservation reservation = ReservationsManagers.makeReservation(
+                        PackageManager.retrievePackage(PACKAGE_ID), (Customer) App.user);
+                Files.write(STATE_FILE, List.of(String.valueOf(rooms), String.valueOf(reservation.getId())));
+                Runtime.getRuntime().halt(0);
+                break;
+            case "after-barrier":
+                Scratch.check(ReservationsManagers.getReservation(Integer.parseInt(before.get(1))) != null,
+                        "reservation survived the halt");
+                Scratch.check(rooms == Integer.parseInt(before.get(0)) - 1,
+                        "hotel booking flushed before the reservation survived the halt");
+                break;
+            default:
+                throw new IllegalArgumentException(args[0]);
+        }
+        Scratch.exitWithResult();
+    }
+
+    private static long journalRows() throws IOException {
+        if (!Files.exists(HOTEL_JOURNAL)) {
+            return 0;
+        }
+        try (var lines = Files.lines(HOTEL_JOURNAL)) {
+            return lines.count();
+        }
+    }
+}
@@ -22,5 +22,17 @@ public class Constants {
     public static final Color BUTTON_COLOR = new Color(216,196,182);
     // font config
     public static final Font font = new Font("Arial", Font.PLAIN, 14);
+    // booking config
+    public static final int PAYMENT_HOLD_TTL_SECONDS = 600;
+    // availability compaction config
+    public static final int AVAILABILITY_RETENTION_DAYS = 7;
+    public static final int AVAILABILITY_COMPACTION_INTERVAL_HOURS = 24;
+    public static final boolean AVAILABILITY_WRITE_BEHIND = false;
+    public static final long AVAILABILITY_FLUSH_INTERVAL_MILLIS = 1000;
+    public static final int AVAILABILITY_FLUSH_MAX_ROWS = 500;
+    // itinerary search config
+    public static final int MIN_CONNECTION_MINUTES = 60;
+    public static final int MAX_LAYOVER_HOURS = 24;
+    public static final int MAX_ITINERARY_LEGS = 3;
 
 }
@@ -1,7 +1,6 @@
 package core;
 
 import Users.User;
-import gui.AdminGUI;
 import gui.LoginGUI;
 import gui.RegisterGUI;
 
@@ -24,11 +23,10 @@ public class App {
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                new AdminGUI().setVisible(false);
-                    new LoginGUI().setVisible(true);
-                    new RegisterGUI().setVisible(false);
-
-
+                new LoginGUI().setVisible(true);
+                new RegisterGUI().setVisible(false);
+                StartupLoader.start();
+                AvailabilityCompactor.start();
             }
         });
     }
@@ -0,0 +1,66 @@
+package core;
+
+import constants.Constants;
+import products.CompactionReport;
+import products.Flight;
+import products.Hotel;
+import products.Taxi;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the availability files from growing without bound. Once the startup data is loaded, and
+ * then at a fixed interval, each file is rewritten without rows dated before the retention
+ * horizon and without rows that only repeat the product's default availability. The rewrite
+ * runs on a background thread and is swapped in atomically, so bookings carry on meanwhile.
+ */
+public class AvailabilityCompactor {
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Schedules the compaction job. Calling it again once the job is scheduled has no effect.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "availability-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                StartupLoader.awaitLoaded();
+                compactAll(LocalDate.now().minusDays(Constants.AVAILABILITY_RETENTION_DAYS));
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, 0, Constants.AVAILABILITY_COMPACTION_INTERVAL_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * Compacts the hotel, flight and taxi availability files and prints what was reclaimed.
+     *
+     * @param horizon The first date to keep; earlier rows are dropped.
+     * @return A report for each file that was compacted.
+     */
+    public static ArrayList<CompactionReport> compactAll(LocalDate horizon) {
+        ArrayList<CompactionReport> reports = new ArrayList<>();
+        addReport(reports, Hotel.compactAvailability(horizon));
+        addReport(reports, Flight.compactAvailability(horizon));
+        addReport(reports, Taxi.compactAvailability(horizon.atStartOfDay()));
+        return reports;
+    }
+
+    private static void addReport(ArrayList<CompactionReport> reports, CompactionReport report) {
+        if (report != null) {
+            System.out.println("Compacted " + report);
+            reports.add(report);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package core;
+
+import databases.CustomerDB;
+import products.Flight;
+import products.Hotel;
+import products.Taxi;
+import services.BookingTransaction;
+import services.PackageManager;
+import services.TravelParser;
+
+import java.io.FileNotFoundException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Warms the application data in the background while the login screen is shown.
+ * Hotels, flights, taxis and customers are loaded in parallel on a fork-join pool;
+ * packages and availability data depend on the catalogs and are loaded once those finish.
+ * Last, availability taken by bookings whose reservation was never written is given back.
+ * Callers that need a catalog before the loader reaches it block on the catalog's lock
+ * in TravelParser rather than parsing it again.
+ */
+public class StartupLoader {
+    private static ForkJoinTask<?> warmUp;
+
+    /**
+     * Starts the background warm-up. Calling it again while a warm-up is running has no effect.
+     */
+    public static synchronized void start() {
+        if (warmUp != null) {
+            return;
+        }
+        warmUp = ForkJoinPool.commonPool().submit(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                long start = System.nanoTime();
+                ForkJoinTask.invokeAll(
+                        stage("hotels", TravelParser::getHotelsDict),
+                        stage("flights", TravelParser::getFlightsDict),
+                        stage("taxis", TravelParser::getTaxisDict),
+                        stage("customers", CustomerDB::loadCustomers));
+                ForkJoinTask.invokeAll(
+                        stage("packages", PackageManager::packageDictGenerator),
+                        stage("hotel availability", () -> preload(Hotel::preloadAvailability)),
+                        stage("flight availability", () -> preload(Flight::preloadAvailability)),
+                        stage("taxi availability", () -> preload(Taxi::preloadAvailability)));
+                stage("unfinished bookings", BookingTransaction::rollBackUnreserved).invoke();
+                System.out.println("Startup data loaded in " + millisSince(start) + " ms");
+            }
+        });
+    }
+
+    /**
+     * Blocks until the background warm-up has finished, starting it first if needed.
+     */
+    public static void awaitLoaded() {
+        start();
+        warmUp.join();
+    }
+
+    private static RecursiveAction stage(String name, Runnable work) {
+        return new RecursiveAction() {
+            @Override
+            protected void compute() {
+                long start = System.nanoTime();
+                try {
+                    work.run();
+                    System.out.println("Loaded " + name + " in " + millisSince(start) + " ms");
+                } catch (RuntimeException e) {
+                    System.out.println("Error loading " + name + ": " + e);
+                }
+            }
+        };
+    }
+
+    private static void preload(AvailabilityPreloader preloader) {
+        try {
+            preloader.preload();
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private interface AvailabilityPreloader {
+        void preload() throws FileNotFoundException;
+    }
+}
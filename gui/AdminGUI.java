@@ -37,8 +37,7 @@ public class AdminGUI extends JFrame {
         CustomerDB.loadCustomers();
         userCount.setText(String.valueOf(CustomerDB.getSize()));
         reservationsCount.setText(String.valueOf(ReservationsManagers.getAllReservations().size()));
-        PackageManager.packageDictGenerator();
-        packageCount.setText(String.valueOf(PackageManager.getActivePackages().size()));
+        packageCount.setText(String.valueOf(PackageManager.getActivePackageCount()));
         createEditDeletePackagesButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -83,7 +82,7 @@ public class AdminGUI extends JFrame {
      * */
 
     public void editDeletePackagesFunction(){
-    if(!PackageManager.getActivePackages().isEmpty()) {
+    if(PackageManager.getActivePackageCount() > 0) {
         dispose();
         new PackageManagementGUI().setVisible(true);
     }else{
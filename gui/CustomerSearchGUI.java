@@ -130,15 +130,15 @@ public class CustomerSearchGUI extends JFrame {
             String username = cst.getUsername();
             String password = cst.getPassword();
             Integer id = cst.getID();
-            Integer moneySpent = 0;
 
-            for (Reservation reservation : cst.getTravelHistory()) {
-                if (reservation.isStatus()) {
-                    moneySpent += reservation.getRelatedPackage().getDiscountedPrice();
+            if (searchUsername.isEmpty() || username.toLowerCase().contains(searchUsername.toLowerCase())) {
+                Integer moneySpent = 0;
+                for (Reservation reservation : cst.getTravelHistory()) {
+                    if (reservation.isStatus()) {
+                        moneySpent += reservation.getRelatedPackage().getDiscountedPrice();
+                    }
                 }
-            }
 
-            if (searchUsername.isEmpty() || username.toLowerCase().contains(searchUsername.toLowerCase())) {
                 Object[] rowData = new Object[5];
                 rowData[0] = id;
                 rowData[1] = username;
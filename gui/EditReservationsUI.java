@@ -7,7 +7,7 @@ import services.ReservationsManagers;
 import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.time.format.DateTimeFormatter;
 import java.util.EventObject;
 
@@ -128,7 +128,7 @@ public class EditReservationsUI extends JFrame {
                     if (confirm == JOptionPane.YES_OPTION) {
                         try {
                             ReservationsManagers.cancellationInitiator(reservation);
-                        } catch (FileNotFoundException ex) {
+                        } catch (IOException ex) {
                             throw new RuntimeException(ex);
                         }
                         refreshReservationList();
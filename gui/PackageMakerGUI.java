@@ -227,30 +227,11 @@ private void createInitialPanel() {
      */
     void searchTaxis(String city, LocalDateTime taxiPickupDateTime) {
         ArrayList<Taxi> taxisInCity = Taxi.selectByCity(city);
-        double distanceKm = selectedHotel.getDistanceToAirport();
-        int travelTimeMinutes = (int) Math.ceil((distanceKm / 60.0) * 60);
-
-        LocalDateTime taxiArrivalTime = taxiPickupDateTime.plusMinutes(travelTimeMinutes);
+        int travelTimeMinutes = Taxi.travelMinutes(selectedHotel);
         taxiTime = taxiPickupDateTime;
         System.out.println(taxiTime);
 
-        currentTaxis = new ArrayList<>();
-        for (Taxi taxi : taxisInCity) {
-            boolean hasAvailability = true;
-            LocalDateTime checkTime = taxiPickupDateTime;
-
-            while (!checkTime.isAfter(taxiArrivalTime)) {
-                if (taxi.getAvailabilityForDateTime(checkTime) <= 0) {
-                    hasAvailability = false;
-                    break;
-                }
-                checkTime = checkTime.plusMinutes(2);
-            }
-
-            if (hasAvailability) {
-                currentTaxis.add(taxi);
-            }
-        }
+        currentTaxis = Taxi.availableCarsListMaker(taxiPickupDateTime, travelTimeMinutes, taxisInCity);
         if (currentTaxis.isEmpty()) {
             JOptionPane.showMessageDialog(this,
                     "No available taxis found in " + city + " at " + taxiPickupDateTime.format(formatterTime),
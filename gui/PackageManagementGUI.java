@@ -1,12 +1,12 @@
 package gui;
 
-import services.Package;
 import services.PackageManager;
 
 import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
-import java.time.format.DateTimeFormatter;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.*;
 import java.util.List;
 
@@ -19,7 +19,7 @@ public class PackageManagementGUI extends JFrame {
     private JPanel mainPanel;
     private DefaultTableModel tableModel;
     private JScrollPane jScrollPane;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private PackageTableRows packageRows;
     private static final Font font = new Font("Arial", Font.PLAIN, 14);
 
     /**
@@ -47,11 +47,21 @@ public class PackageManagementGUI extends JFrame {
                 return columnIndex == 11 ? JPanel.class : String.class;
             }
         };
+        packageRows = new PackageTableRows(tableModel, pck -> !Objects.equals(pck.getType(), "not offered"),
+                this::actionsFor);
 
         initializeColumns();
         loadPackageData();
         setupButtons();
 
+        PackageManager.addPackageListener(packageRows);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                PackageManager.removePackageListener(packageRows);
+            }
+        });
+
         add(mainPanel);
     }
 
@@ -93,55 +103,38 @@ public class PackageManagementGUI extends JFrame {
      * Loads package data from the PackageManager and populates the table.
      */
     private void loadPackageData() {
-        PackageManager.packageDictGenerator();
-
-        for (int id : PackageManager.packageDict.keySet()) {
-            if (!Objects.equals(PackageManager.retrievePackage(id).getType(), "not offered")) {
-                Object[] rowData = new Object[12];
-                rowData[0] = String.valueOf(id);
-                rowData[1] = PackageManager.retrievePackage(id).getFlight().getDepartureCity();
-                rowData[2] = PackageManager.retrievePackage(id).getFlight().getArrivalCity();
-                rowData[3] = PackageManager.retrievePackage(id).getFlight().getAirline();
-                rowData[4] = PackageManager.retrievePackage(id).getFlight().getTicketClass();
-                rowData[5] = PackageManager.retrievePackage(id).getHotel().getName();
-                rowData[6] = PackageManager.retrievePackage(id).getTaxi().getTaxiType();
-                rowData[7] = String.valueOf(PackageManager.retrievePackage(id).getTotalCost());
-
-                if (Objects.equals(PackageManager.retrievePackage(id).getType(), "offered")) {
-                    rowData[8] = String.valueOf(PackageManager.retrievePackage(id).getDiscountedPrice());
-                } else {
-                    rowData[8] = "no discount";
-                }
-
-                rowData[9] = PackageManager.retrievePackage(id).getDateStart().format(DATE_FORMATTER);
-                rowData[10] = PackageManager.retrievePackage(id).getDateEnd().format(DATE_FORMATTER);
-
-                JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
-                JButton editButton = new JButton("Edit");
-                JButton deleteButton = new JButton("Delete");
-
-                editButton.setFont(font);
-                deleteButton.setFont(font);
-
-                editButton.addActionListener(e -> {
-                    new PackageEditorGUI(PackageManager.retrievePackage(id)).setVisible(true);
-                });
-
-                deleteButton.addActionListener(e -> {
-                    PackageManager.deletePackage(id);
-                });
-
-                buttonPanel.add(editButton);
-                buttonPanel.add(deleteButton);
-                rowData[11] = buttonPanel;
-
-                tableModel.addRow(rowData);
-            }
-        }
+        packageRows.addAll(PackageManager.getActivePackages().values());
 
         setupTable();
     }
 
+    /**
+     * Builds the Actions panel of a package row.
+     *
+     * @param id The package ID.
+     * @return The panel with the Edit and Delete buttons.
+     */
+    private JPanel actionsFor(int id) {
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        JButton editButton = new JButton("Edit");
+        JButton deleteButton = new JButton("Delete");
+
+        editButton.setFont(font);
+        deleteButton.setFont(font);
+
+        editButton.addActionListener(e -> {
+            new PackageEditorGUI(PackageManager.retrievePackage(id)).setVisible(true);
+        });
+
+        deleteButton.addActionListener(e -> {
+            PackageManager.deletePackage(id);
+        });
+
+        buttonPanel.add(editButton);
+        buttonPanel.add(deleteButton);
+        return buttonPanel;
+    }
+
     /**
      * Configures table properties and sorting.
      */
@@ -0,0 +1,127 @@
+package gui;
+
+import services.Package;
+import services.PackageListener;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Fills the rows of a package table and keeps them in step with saved packages.
+ * The row of each package is found through a map from package ID to row index, so a
+ * change to one package updates its row without scanning the table.
+ */
+class PackageTableRows implements PackageListener {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private final DefaultTableModel tableModel;
+    private final Predicate<Package> shown;
+    private final IntFunction<JPanel> actions;
+    private final HashMap<Integer, Integer> rowById = new HashMap<>();
+
+    /**
+     * @param tableModel The table model, with the package columns and an Actions column last.
+     * @param shown      Which packages the table lists.
+     * @param actions    Builds the Actions panel of the package with the given ID.
+     */
+    PackageTableRows(DefaultTableModel tableModel, Predicate<Package> shown, IntFunction<JPanel> actions) {
+        this.tableModel = tableModel;
+        this.shown = shown;
+        this.actions = actions;
+    }
+
+    /**
+     * Adds a row for each of the packages the table lists.
+     *
+     * @param packages The packages.
+     */
+    void addAll(Collection<Package> packages) {
+        for (Package pck : packages) {
+            if (shown.test(pck)) {
+                add(pck);
+            }
+        }
+    }
+
+    /**
+     * Updates, adds or removes the row of a package that was saved while the table is shown.
+     *
+     * @param pck The saved package.
+     */
+    @Override
+    public void packageChanged(Package pck) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> packageChanged(pck));
+            return;
+        }
+        Integer row = rowById.get(pck.getId());
+        if (row == null) {
+            if (shown.test(pck)) {
+                add(pck);
+            }
+        } else if (!shown.test(pck)) {
+            remove(pck.getId(), row);
+        } else {
+            Object[] rowData = rowFor(pck);
+            for (int column = 1; column < rowData.length; column++) {
+                tableModel.setValueAt(rowData[column], row, column);
+            }
+        }
+    }
+
+    private void add(Package pck) {
+        rowById.put(pck.getId(), tableModel.getRowCount());
+        tableModel.addRow(rowFor(pck));
+    }
+
+    /**
+     * Removes a row by moving the last row into its place, so only the moved package's index
+     * changes. The table is sorted by package ID, so the order shown is unaffected.
+     */
+    private void remove(int id, int row) {
+        rowById.remove(id);
+        int last = tableModel.getRowCount() - 1;
+        if (row != last) {
+            for (int column = 0; column < tableModel.getColumnCount(); column++) {
+                tableModel.setValueAt(tableModel.getValueAt(last, column), row, column);
+            }
+            rowById.put(Integer.parseInt((String) tableModel.getValueAt(row, 0)), row);
+        }
+        tableModel.removeRow(last);
+    }
+
+    /**
+     * Builds the table row of a package.
+     *
+     * @param pck The package.
+     * @return The row data.
+     */
+    private Object[] rowFor(Package pck) {
+        int id = pck.getId();
+        Object[] rowData = new Object[12];
+        rowData[0] = String.valueOf(id);
+        rowData[1] = pck.getFlight().getDepartureCity();
+        rowData[2] = pck.getFlight().getArrivalCity();
+        rowData[3] = pck.getFlight().getAirline();
+        rowData[4] = pck.getFlight().getTicketClass();
+        rowData[5] = pck.getHotel().getName();
+        rowData[6] = pck.getTaxi().getTaxiType();
+        rowData[7] = String.valueOf(pck.getTotalCost());
+
+        if (Objects.equals(pck.getType(), "offered")) {
+            rowData[8] = String.valueOf(pck.getDiscountedPrice());
+        } else {
+            rowData[8] = "no discount";
+        }
+
+        rowData[9] = pck.getDateStart().format(DATE_FORMATTER);
+        rowData[10] = pck.getDateEnd().format(DATE_FORMATTER);
+        rowData[11] = actions.apply(id);
+        return rowData;
+    }
+}
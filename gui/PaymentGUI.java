@@ -2,10 +2,14 @@ package gui;
 
 import Users.Customer;
 import constants.Constants;
+import services.HoldManager;
+import services.PaymentHold;
 import services.Vendor;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
 import java.text.NumberFormat;
 import java.time.LocalDate;
@@ -25,6 +29,7 @@ public class PaymentGUI extends JFrame {
     private LocalDate hotelStartDate;
     private LocalDate dateStart;
     private LocalDate dateEnd;
+    private PaymentHold hold;
 
     private JPanel detailsPanel;
     private JPanel paymentPanel;
@@ -43,6 +48,7 @@ public class PaymentGUI extends JFrame {
         this.hotelStartDate = pck.getHotelStart();
         this.dateStart = pck.getDateStart();
         this.dateEnd = pck.getDateEnd();
+        placeHold();
 
         setupFrame();
         initializeComponents();
@@ -50,6 +56,18 @@ public class PaymentGUI extends JFrame {
         addListeners();
     }
 
+    /**
+     * Holds the package's hotel nights, flight seat and taxi ride while the customer confirms.
+     * If something is already gone, no hold is placed and availability is checked again on confirmation.
+     */
+    private void placeHold() {
+        try {
+            hold = HoldManager.hold(pck, hotelStartDate, dateEnd, dateStart, taxiTime);
+        } catch (IllegalStateException e) {
+            hold = null;
+        }
+    }
+
     /**
      * Configures the main frame settings.
      */
@@ -73,12 +91,12 @@ public class PaymentGUI extends JFrame {
         detailsPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
 
         addDetailsSection("Package Details");
-        addDetailRow("Hotel:", (pck.getHotel().toString()) + " Price per night: " + "$" + pck.getHotel().getPricePerNight() + " * " + pck.getDaysInHotel() + " = $" + pck.getTotalCost());
+        addDetailRow("Hotel:", (pck.getHotel().toString()) + " Price per night: " + "$" + pck.getHotel().getPricePerNight() + " * " + pck.getDaysInHotel() + " = $" + pck.getHotelCost());
         addDetailRow("Check-in:", hotelStartDate.format(DateTimeFormatter.ofPattern("MMM dd, yyyy")));
         addDetailRow("Check-out:", dateEnd.format(DateTimeFormatter.ofPattern("MMM dd, yyyy")));
-        addDetailRow("Flight:", (pck.getFlight().toString()) + " Price of the ticket: $" + (pck.getFlight().getPrice()));
+        addDetailRow("Flight:", (pck.getFlight().toString()) + " Price of the ticket: $" + pck.getFlightCost());
         addDetailRow("Flight Date:", dateStart.format(DateTimeFormatter.ofPattern("MMM dd, yyyy")));
-        addDetailRow("Taxi:", (pck.getTaxi().toString()) + " Estimated cost from the airport to the hotel: $" + pck.getTaxi().taxiPriceCalculator(pck.getHotel()));
+        addDetailRow("Taxi:", (pck.getTaxi().toString()) + " Estimated cost from the airport to the hotel: $" + pck.getTaxiFare());
         addDetailRow("Pickup Time:", taxiTime.format(DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm")));
 
         addDetailsSection("Customer Information");
@@ -125,6 +143,15 @@ public class PaymentGUI extends JFrame {
         cancelButton.addActionListener(e -> {
             dispose();
         });
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (hold != null) {
+                    hold.release();
+                }
+            }
+        });
     }
 
     /**
@@ -166,7 +193,11 @@ public class PaymentGUI extends JFrame {
      */
     private void handleBooking() {
         try {
-            Vendor.packageSeller(pck, cst, taxiTime, hotelStartDate, dateStart, dateEnd);
+            if (hold != null) {
+                Vendor.packageSeller(hold, cst);
+            } else {
+                Vendor.packageSeller(pck, cst, taxiTime, hotelStartDate, dateStart, dateEnd);
+            }
 
             JOptionPane.showMessageDialog(this,
                     "Booking confirmed successfully!",
@@ -175,7 +206,7 @@ public class PaymentGUI extends JFrame {
 
             dispose();
 
-        } catch (IOException ex) {
+        } catch (IOException | IllegalStateException ex) {
             JOptionPane.showMessageDialog(this,
                     "Error processing booking: " + ex.getMessage(),
                     "Booking Error",
@@ -7,7 +7,8 @@ import services.PackageManager;
 import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
-import java.time.format.DateTimeFormatter;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.*;
 import java.util.List;
 
@@ -19,7 +20,7 @@ public class TravelSelectorGUI extends JFrame {
     private JPanel mainPanel;
     private DefaultTableModel tableModel;
     private JScrollPane jScrollPane;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private PackageTableRows packageRows;
     private static final Font font = new Font("Arial", Font.PLAIN, 14);
 
     /**
@@ -47,12 +48,21 @@ public class TravelSelectorGUI extends JFrame {
                 return columnIndex == 11 ? JPanel.class : String.class;
             }
         };
+        packageRows = new PackageTableRows(tableModel, pck -> Objects.equals(pck.getType(), "offered"), this::actionsFor);
 
         initializeColumns();
         loadPackages();
         configureTable();
         setupBackButton();
 
+        PackageManager.addPackageListener(packageRows);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                PackageManager.removePackageListener(packageRows);
+            }
+        });
+
         add(mainPanel);
     }
 
@@ -78,36 +88,26 @@ public class TravelSelectorGUI extends JFrame {
      * Loads available packages into the table.
      */
     private void loadPackages() {
-        PackageManager.packageDictGenerator();
-        for (int id : PackageManager.packageDict.keySet()) {
-            if (Objects.equals(PackageManager.retrievePackage(id).getType(), "offered")) {
-                Object[] rowData = new Object[12];
-                rowData[0] = String.valueOf(id);
-                rowData[1] = PackageManager.retrievePackage(id).getFlight().getDepartureCity();
-                rowData[2] = PackageManager.retrievePackage(id).getFlight().getArrivalCity();
-                rowData[3] = PackageManager.retrievePackage(id).getFlight().getAirline();
-                rowData[4] = PackageManager.retrievePackage(id).getFlight().getTicketClass();
-                rowData[5] = PackageManager.retrievePackage(id).getHotel().getName();
-                rowData[6] = PackageManager.retrievePackage(id).getTaxi().getTaxiType();
-                rowData[7] = String.valueOf(PackageManager.retrievePackage(id).getTotalCost());
-                rowData[8] = String.valueOf(PackageManager.retrievePackage(id).getDiscountedPrice());
-                rowData[9] = PackageManager.retrievePackage(id).getDateStart().format(DATE_FORMATTER);
-                rowData[10] = PackageManager.retrievePackage(id).getDateEnd().format(DATE_FORMATTER);
-
-                JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
-                JButton detailsButton = new JButton("Details");
-                detailsButton.setFont(font);
-
-                detailsButton.addActionListener(e -> {
-                    new PaymentGUI((Customer) App.user, PackageManager.retrievePackage(id)).setVisible(true);
-                });
-
-                buttonPanel.add(detailsButton);
-                rowData[11] = buttonPanel;
-
-                tableModel.addRow(rowData);
-            }
-        }
+        packageRows.addAll(PackageManager.getPackagesOfType("offered"));
+    }
+
+    /**
+     * Builds the Actions panel of a package row.
+     *
+     * @param id The package ID.
+     * @return The panel with the Details button.
+     */
+    private JPanel actionsFor(int id) {
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        JButton detailsButton = new JButton("Details");
+        detailsButton.setFont(font);
+
+        detailsButton.addActionListener(e -> {
+            new PaymentGUI((Customer) App.user, PackageManager.retrievePackage(id)).setVisible(true);
+        });
+
+        buttonPanel.add(detailsButton);
+        return buttonPanel;
     }
 
     /**
@@ -0,0 +1,326 @@
+package products;
+
+import constants.Constants;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Append-only persistence for an availability file of "id,slot,capacity" rows.
+ * The availability file itself acts as a checkpoint; every change is appended to a journal
+ * next to it instead of rewriting the checkpoint, so a booking costs one small append no matter
+ * how many rows the file holds. Replaying the checkpoint and then the journal, with later rows
+ * for the same id and slot winning, reproduces the current state. Once the journal grows past
+ * a threshold it is compacted: the merged state is written to a new checkpoint, swapped in
+ * atomically, and the journal is emptied. A compaction can also be given a filter, which lets
+ * the owner drop rows that no longer matter, such as days that have passed.
+ * <p>
+ * Owners queue changed rows with {@link #enqueue(String)}. They are written by {@link #flush(boolean)},
+ * which owners call directly to commit a change, or which the {@link WriteBehindFlusher} calls in
+ * the background when write-behind is enabled.
+ * <p>
+ * A row written when a booking commits carries the ID of the booking's reservation as a fourth
+ * field. Replay remembers the slots whose latest row carries such a tag, so that the owner can
+ * roll back the rows of bookings whose reservation was never written, for example because the
+ * application stopped between the two.
+ */
+public class AvailabilityJournal {
+    private static final int COMPACTION_THRESHOLD = 1000;
+
+    private final File checkpoint;
+    private final File journal;
+    private final ConcurrentLinkedQueue<String> pendingRows = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ConcurrentHashMap<String, Integer> bookingsBySlot = new ConcurrentHashMap<>();
+    private ArrayList<String> unflushedRows = new ArrayList<>();
+    private boolean unsynced;
+    private int journalRows;
+
+    /**
+     * Creates a journal for an availability file. The journal lives next to it with
+     * the ".journal" extension.
+     *
+     * @param checkpointPath Path of the availability file.
+     */
+    public AvailabilityJournal(String checkpointPath) {
+        this.checkpoint = new File(checkpointPath);
+        this.journal = new File(checkpointPath.replaceFirst("\\.txt$", "") + ".journal");
+        WriteBehindFlusher.register(this);
+    }
+
+    /**
+     * Feeds every row of the checkpoint and then of the journal to a consumer, split on commas.
+     * Blank and malformed rows with fewer than three fields are skipped. The slots whose latest
+     * row carries a booking tag are kept for {@link #takeBookedSlots()}.
+     *
+     * @param row Receives the fields of each row in order.
+     * @throws FileNotFoundException If the checkpoint file is not found.
+     */
+    public synchronized void replay(Consumer<String[]> row) throws FileNotFoundException {
+        if (!checkpoint.exists()) {
+            throw new FileNotFoundException(checkpoint.getPath());
+        }
+        Consumer<String[]> tracked = fields -> {
+            String slot = fields[0] + "," + fields[1];
+            if (fields.length > 3) {
+                bookingsBySlot.put(slot, Integer.parseInt(fields[3]));
+            } else {
+                bookingsBySlot.remove(slot);
+            }
+            row.accept(fields);
+        };
+        readRows(checkpoint, tracked);
+        journalRows = journal.exists() ? readRows(journal, tracked) : 0;
+    }
+
+    /**
+     * Returns the slots whose latest replayed row carries a booking tag and has not been
+     * superseded since, and forgets them.
+     *
+     * @return The booking tag of each such slot, keyed by "id,slot".
+     */
+    public synchronized Map<String, Integer> takeBookedSlots() {
+        HashMap<String, Integer> slots = new HashMap<>(bookingsBySlot);
+        bookingsBySlot.clear();
+        return slots;
+    }
+
+    /**
+     * Queues a row to be written by the next flush. Rows for the same id and slot queued before
+     * a flush are coalesced, so only the latest of them is written. With write-behind enabled,
+     * the background flusher is woken early once enough rows are queued.
+     *
+     * @param row A row in "id,slot,capacity" form, optionally followed by a booking tag.
+     */
+    public void enqueue(String row) {
+        if (!bookingsBySlot.isEmpty()) {
+            bookingsBySlot.remove(slotKey(row));
+        }
+        pendingRows.add(row);
+        if (pendingCount.incrementAndGet() >= Constants.AVAILABILITY_FLUSH_MAX_ROWS
+                && WriteBehindFlusher.isEnabled()) {
+            WriteBehindFlusher.requestFlush();
+        }
+    }
+
+    /**
+     * Writes the queued rows now, or leaves them to the background flusher when write-behind is enabled.
+     * Write errors are reported and otherwise ignored; the rows stay queued for the next flush.
+     */
+    public void flushLater() {
+        if (WriteBehindFlusher.isEnabled()) {
+            WriteBehindFlusher.start();
+            return;
+        }
+        try {
+            flush(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the queued rows, coalesced, in a single append, compacting afterwards if the journal
+     * is large. A forced flush also forces any earlier unforced appends to disk, so once it
+     * returns every queued change is durable.
+     *
+     * @param force Whether to force the journal to the storage device before returning.
+     * @throws IOException If the rows cannot be written; they stay queued for the next flush.
+     */
+    public synchronized void flush(boolean force) throws IOException {
+        writePending(force);
+        compactIfNeeded();
+    }
+
+    /**
+     * Compacts the journal if it has grown past the threshold, for example after a startup replay.
+     */
+    public synchronized void compactIfNeeded() {
+        if (journalRows >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Folds the journal into the checkpoint. The merged rows are written to a temporary file
+     * that replaces the checkpoint atomically before the journal is removed, so a crash at
+     * any point leaves a state that replays to the same result.
+     */
+    public synchronized void compact() {
+        if (!journal.exists()) {
+            journalRows = 0;
+            return;
+        }
+        compact(fields -> true);
+    }
+
+    /**
+     * Writes the queued rows and folds the journal into the checkpoint, keeping only the merged
+     * rows accepted by a filter. The checkpoint is swapped in atomically as in {@link #compact()}, and is rewritten even if
+     * the journal is empty.
+     *
+     * @param keep Decides, from its fields, whether a row's latest value stays in the checkpoint.
+     * @return The rows and bytes reclaimed, or null if the checkpoint could not be read or replaced.
+     */
+    public synchronized CompactionReport compact(Predicate<String[]> keep) {
+        try {
+            writePending(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        long bytesBefore = checkpoint.length() + journal.length();
+        LinkedHashMap<String, String[]> merged = new LinkedHashMap<>();
+        Consumer<String[]> collect = fields -> merged.put(fields[0] + "," + fields[1], fields);
+        long start = System.nanoTime();
+        int rowsBefore;
+        try {
+            rowsBefore = readRows(checkpoint, collect);
+            if (journal.exists()) {
+                rowsBefore += readRows(journal, collect);
+            }
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
+        long parseNanosBefore = System.nanoTime() - start;
+
+        ArrayList<String> rows = new ArrayList<>();
+        for (String[] fields : merged.values()) {
+            if (keep.test(fields)) {
+                rows.add(String.join(",", fields));
+            }
+        }
+        if (!rewrite(rows)) {
+            return null;
+        }
+
+        start = System.nanoTime();
+        int rowsAfter;
+        try {
+            rowsAfter = readRows(checkpoint, fields -> {
+            });
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
+        long parseNanosAfter = System.nanoTime() - start;
+        return new CompactionReport(checkpoint.getName(), rowsBefore, rowsAfter, bytesBefore, checkpoint.length(),
+                parseNanosBefore, parseNanosAfter);
+    }
+
+    /**
+     * Replaces the checkpoint with the given rows and empties the journal. The rows are written
+     * to a temporary file that replaces the checkpoint atomically before the journal is removed.
+     *
+     * @param rows The complete set of rows for the new checkpoint.
+     * @return true if the checkpoint was replaced; errors are reported otherwise.
+     */
+    public synchronized boolean rewrite(Collection<String> rows) {
+        Path target = checkpoint.toPath();
+        Path temp = Paths.get(checkpoint.getPath() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            for (String row : rows) {
+                writer.write(row);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(journal.toPath());
+            journalRows = 0;
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the queued rows, coalesced, in a single append. Rows that fail to be written are
+     * kept and written first by the next attempt, ahead of any rows queued meanwhile.
+     */
+    private void writePending(boolean force) throws IOException {
+        LinkedHashMap<String, String> coalesced = new LinkedHashMap<>();
+        for (String row : unflushedRows) {
+            coalesced.put(slotKey(row), row);
+        }
+        for (String row = pendingRows.poll(); row != null; row = pendingRows.poll()) {
+            pendingCount.decrementAndGet();
+            coalesced.put(slotKey(row), row);
+        }
+        unflushedRows = new ArrayList<>(coalesced.values());
+        write(unflushedRows, force);
+        unflushedRows = new ArrayList<>();
+    }
+
+    /**
+     * Appends rows to the journal in a single write. A forced write also forces any earlier
+     * unforced ones to the storage device.
+     */
+    private void write(List<String> rows, boolean force) throws IOException {
+        if (rows.isEmpty() && !(force && unsynced)) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (String row : rows) {
+            text.append(row).append(System.lineSeparator());
+        }
+        try (FileOutputStream out = new FileOutputStream(journal, true)) {
+            out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+            if (force) {
+                out.getChannel().force(false);
+            }
+        }
+        unsynced = !force;
+        journalRows += rows.size();
+    }
+
+    private static String slotKey(String row) {
+        return row.substring(0, row.indexOf(',', row.indexOf(',') + 1));
+    }
+
+    private static int readRows(File file, Consumer<String[]> row) throws FileNotFoundException {
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length < 3) {
+                    continue;
+                }
+                row.accept(fields);
+                count++;
+            }
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return count;
+    }
+}
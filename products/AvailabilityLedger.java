@@ -0,0 +1,540 @@
+package products;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Holds the daily remaining capacity of every product stored in one availability file.
+ * The file is read once, and each product's capacities are kept in an int array indexed by
+ * epoch day, so checking a date range is a walk over an array instead of a file scan.
+ * Days without a recorded capacity fall back to the product's default count, as before.
+ * Each array is backed by a segment tree, so the minimum capacity over a date range is
+ * answered in logarithmic time and kept current with every change.
+ * Changes are persisted through an {@link AvailabilityJournal}, so saving appends only the
+ * days that changed since the last save.
+ * <p>
+ * The ledger is safe for concurrent use. Every product has its own lock, so bookings and
+ * cancellations of different products never wait for each other, while each check-and-update
+ * on a product is atomic and can never take capacity below zero. Changed rows are queued in the
+ * order they were made and drained into the journal under the journal's lock, either on save
+ * or, with write-behind enabled, by the {@link WriteBehindFlusher}.
+ */
+public class AvailabilityLedger {
+    private static final int UNSET = Integer.MIN_VALUE;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /**
+     * Outcome of {@link #release(int, LocalDate, int)}.
+     */
+    public enum Release {
+        RELEASED,
+        AT_CAPACITY,
+        NOT_BOOKED
+    }
+
+    private final AvailabilityJournal journal;
+    private final ConcurrentHashMap<Integer, Days> daysByProduct = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Creates a ledger backed by an availability file of "id,yyyy-MM-dd,capacity" rows.
+     *
+     * @param filePath Path of the availability file.
+     */
+    public AvailabilityLedger(String filePath) {
+        this.journal = new AvailabilityJournal(filePath);
+    }
+
+    /**
+     * Reads the availability file and replays its journal into memory unless this has already been done.
+     *
+     * @throws FileNotFoundException If the file is not found.
+     */
+    public synchronized void load() throws FileNotFoundException {
+        if (loaded) {
+            return;
+        }
+        journal.replay(dataArray -> {
+            int id = Integer.parseInt(dataArray[0]);
+            long epochDay = LocalDate.parse(dataArray[1], DATE_FORMATTER).toEpochDay();
+            int capacity = Integer.parseInt(dataArray[2]);
+            Days days = daysFor(id, epochDay);
+            days.set(days.ensureDay(epochDay), capacity);
+        });
+        loaded = true;
+        journal.compactIfNeeded();
+    }
+
+    /**
+     * Checks whether a capacity has been recorded for a product on a date.
+     *
+     * @param id   The product ID.
+     * @param date The date.
+     * @return true if the ledger has an entry for that day.
+     */
+    public boolean has(int id, LocalDate date) {
+        ensureLoaded();
+        Days days = daysByProduct.get(id);
+        if (days == null) {
+            return false;
+        }
+        synchronized (days) {
+            return days.lookup(date.toEpochDay()) != UNSET;
+        }
+    }
+
+    /**
+     * Returns the remaining capacity of a product on a date, less any units held but not yet committed.
+     *
+     * @param id              The product ID.
+     * @param date            The date.
+     * @param defaultCapacity Capacity to report when no entry is recorded for the day.
+     * @return The remaining capacity.
+     */
+    public int get(int id, LocalDate date, int defaultCapacity) {
+        ensureLoaded();
+        Days days = daysByProduct.get(id);
+        if (days == null) {
+            return defaultCapacity;
+        }
+        synchronized (days) {
+            return days.available(date.toEpochDay(), defaultCapacity);
+        }
+    }
+
+    /**
+     * Returns the smallest remaining capacity of a product over a range of dates.
+     *
+     * @param id              The product ID.
+     * @param start           The first date of the range.
+     * @param end             The last date of the range, inclusive.
+     * @param defaultCapacity Capacity to assume for days without a recorded entry.
+     * @return The minimum capacity over the range, or defaultCapacity if end is before start.
+     */
+    public int minAvailable(int id, LocalDate start, LocalDate end, int defaultCapacity) {
+        ensureLoaded();
+        Days days = daysByProduct.get(id);
+        if (days == null || end.isBefore(start)) {
+            return defaultCapacity;
+        }
+        synchronized (days) {
+            return days.min(start.toEpochDay(), end.toEpochDay(), defaultCapacity);
+        }
+    }
+
+    /**
+     * Records the remaining capacity of a product on a date. The change is kept in memory
+     * until {@link #save()} is called.
+     *
+     * @param id       The product ID.
+     * @param date     The date.
+     * @param capacity The new remaining capacity.
+     */
+    public void set(int id, LocalDate date, int capacity) {
+        ensureLoaded();
+        long epochDay = date.toEpochDay();
+        Days days = daysFor(id, epochDay);
+        synchronized (days) {
+            record(id, days, epochDay, capacity);
+        }
+    }
+
+    /**
+     * Books one unit of a product on every date of a range, provided each date has at least one
+     * unit left. The change is kept in memory until {@link #save()} is called.
+     *
+     * @param id              The product ID.
+     * @param start           The first date of the range.
+     * @param end             The last date of the range, inclusive.
+     * @param defaultCapacity Capacity to assume for days without a recorded entry.
+     * @return true if every date was booked, false if some date has no capacity left.
+     */
+    public boolean reserve(int id, LocalDate start, LocalDate end, int defaultCapacity) {
+        ensureLoaded();
+        Days days = daysFor(id, start.toEpochDay());
+        synchronized (days) {
+            if (days.min(start.toEpochDay(), end.toEpochDay(), defaultCapacity) <= 0) {
+                return false;
+            }
+            for (long epochDay = start.toEpochDay(); epochDay <= end.toEpochDay(); epochDay++) {
+                int capacity = days.lookup(epochDay);
+                record(id, days, epochDay, (capacity == UNSET ? defaultCapacity : capacity) - 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes one unit of capacity from a product on every date of a range, provided each date has
+     * at least one unit left. Held units are no longer offered to anyone else, but they are kept
+     * apart from the recorded capacity and never written out until the hold is committed, so a
+     * hold that is released, or lost when the application stops, leaves no trace in the file or
+     * in the recorded capacities. A day without an entry stays without one while it is held.
+     *
+     * @param id              The product ID.
+     * @param start           The first date of the range.
+     * @param end             The last date of the range, inclusive.
+     * @param defaultCapacity Capacity to assume for days without a recorded entry.
+     * @return The hold, or null if some date has no capacity left.
+     */
+    public InventoryHold hold(int id, LocalDate start, LocalDate end, int defaultCapacity) {
+        ensureLoaded();
+        Days days = daysFor(id, start.toEpochDay());
+        synchronized (days) {
+            if (days.min(start.toEpochDay(), end.toEpochDay(), defaultCapacity) <= 0) {
+                return null;
+            }
+            for (long epochDay = start.toEpochDay(); epochDay <= end.toEpochDay(); epochDay++) {
+                days.hold(days.ensureDay(epochDay), 1);
+            }
+        }
+        return new RangeHold(id, days, start.toEpochDay(), end.toEpochDay(), defaultCapacity);
+    }
+
+    /**
+     * Gives back one unit of a product's capacity on a date, unless nothing was booked that day.
+     * The change is kept in memory until {@link #save()} is called.
+     *
+     * @param id          The product ID.
+     * @param date        The date.
+     * @param maxCapacity The product's full capacity.
+     * @return Whether the unit was released, or why not.
+     */
+    public Release release(int id, LocalDate date, int maxCapacity) {
+        ensureLoaded();
+        Days days = daysByProduct.get(id);
+        if (days == null) {
+            return Release.NOT_BOOKED;
+        }
+        long epochDay = date.toEpochDay();
+        synchronized (days) {
+            int capacity = days.lookup(epochDay);
+            if (capacity == UNSET) {
+                return Release.NOT_BOOKED;
+            }
+            if (capacity >= maxCapacity) {
+                return Release.AT_CAPACITY;
+            }
+            record(id, days, epochDay, capacity + 1);
+            return Release.RELEASED;
+        }
+    }
+
+    /**
+     * Persists the changes recorded since the last save. With write-behind enabled they are left
+     * to the {@link WriteBehindFlusher}; otherwise they are appended to the journal at once.
+     * Write errors are reported and otherwise ignored.
+     */
+    public void save() {
+        journal.flushLater();
+    }
+
+    /**
+     * Persists the changes recorded since the last save with a single journal append that is
+     * forced to disk before returning.
+     *
+     * @throws IOException If the changes cannot be written; they stay queued in that case.
+     */
+    public void commit() throws IOException {
+        journal.flush(true);
+    }
+
+    /**
+     * Gives back the units taken by bookings whose reservation was never written. Only days whose
+     * latest row in the file was written by such a booking are changed, each getting its unit back
+     * with a new row forced to disk; days changed since the file was loaded are left alone.
+     *
+     * @param reserved Tells whether a reservation ID was written.
+     * @return The number of days rolled back.
+     * @throws IOException If the restored capacities cannot be written.
+     */
+    public int rollBackUnreserved(IntPredicate reserved) throws IOException {
+        ensureLoaded();
+        int rolledBack = 0;
+        for (Map.Entry<String, Integer> slot : journal.takeBookedSlots().entrySet()) {
+            if (reserved.test(slot.getValue())) {
+                continue;
+            }
+            String[] fields = slot.getKey().split(",");
+            int id = Integer.parseInt(fields[0]);
+            long epochDay = LocalDate.parse(fields[1], DATE_FORMATTER).toEpochDay();
+            Days days = daysFor(id, epochDay);
+            synchronized (days) {
+                record(id, days, epochDay, days.lookup(epochDay) + 1);
+            }
+            rolledBack++;
+        }
+        if (rolledBack > 0) {
+            commit();
+        }
+        return rolledBack;
+    }
+
+    /**
+     * Writes any queued changes and rewrites the availability file without the rows that no
+     * longer matter: days before the horizon, and days whose capacity is the product's default,
+     * which is what an absent row reads as anyway. Rows of products the default capacity function
+     * does not know are kept. The ledger in memory is unchanged.
+     *
+     * @param horizon         The first date to keep.
+     * @param defaultCapacity Gives the default capacity of a product ID, or -1 if it is unknown.
+     * @return The rows and bytes reclaimed, or null if the file could not be compacted.
+     */
+    public CompactionReport compact(LocalDate horizon, IntUnaryOperator defaultCapacity) {
+        ensureLoaded();
+        return journal.compact(fields -> !LocalDate.parse(fields[1], DATE_FORMATTER).isBefore(horizon)
+                && Integer.parseInt(fields[2]) != defaultCapacity.applyAsInt(Integer.parseInt(fields[0])));
+    }
+
+    /**
+     * Updates a day and queues its journal row. Must be called holding the product's lock, which
+     * keeps the queued rows of a product in the same order as its updates.
+     */
+    private void record(int id, Days days, long epochDay, int capacity) {
+        days.set(days.ensureDay(epochDay), capacity);
+        journal.enqueue(row(id, epochDay, capacity));
+    }
+
+    /**
+     * Like {@link #record(int, Days, long, int)}, tagging the row with the booking that made the change.
+     */
+    private void record(int id, Days days, long epochDay, int capacity, int booking) {
+        days.set(days.ensureDay(epochDay), capacity);
+        journal.enqueue(row(id, epochDay, capacity) + "," + booking);
+    }
+
+    private static String row(int id, long epochDay, int capacity) {
+        return id + "," + LocalDate.ofEpochDay(epochDay).format(DATE_FORMATTER) + "," + capacity;
+    }
+
+    private Days daysFor(int id, long epochDay) {
+        return daysByProduct.computeIfAbsent(id, k -> new Days(epochDay));
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            try {
+                load();
+            } catch (FileNotFoundException e) {
+                e.printStackTrace();
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * A unit held on each day of a range. Committing turns the held units into recorded bookings
+     * and writes them out; releasing gives them back, persisting the change only if they had
+     * already been committed.
+     */
+    private class RangeHold implements InventoryHold {
+        private static final int HELD = 0;
+        private static final int COMMITTED = 1;
+        private static final int RELEASED = 2;
+
+        private final int id;
+        private final Days days;
+        private final long firstDay;
+        private final long lastDay;
+        private final int defaultCapacity;
+        private int state = HELD;
+
+        RangeHold(int id, Days days, long firstDay, long lastDay, int defaultCapacity) {
+            this.id = id;
+            this.days = days;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.defaultCapacity = defaultCapacity;
+        }
+
+        @Override
+        public void commit(int booking) throws IOException {
+            synchronized (days) {
+                if (state != HELD) {
+                    throw new IllegalStateException("Hold is no longer active");
+                }
+                for (long epochDay = firstDay; epochDay <= lastDay; epochDay++) {
+                    int index = days.ensureDay(epochDay);
+                    int capacity = days.capacities[index] == UNSET ? defaultCapacity : days.capacities[index];
+                    days.hold(index, -1);
+                    record(id, days, epochDay, capacity - 1, booking);
+                }
+                state = COMMITTED;
+            }
+            AvailabilityLedger.this.commit();
+        }
+
+        @Override
+        public void release() {
+            boolean wasCommitted;
+            synchronized (days) {
+                if (state == RELEASED) {
+                    return;
+                }
+                wasCommitted = state == COMMITTED;
+                for (long epochDay = firstDay; epochDay <= lastDay; epochDay++) {
+                    int index = days.ensureDay(epochDay);
+                    if (wasCommitted) {
+                        record(id, days, epochDay, days.capacities[index] + 1);
+                    } else {
+                        days.hold(index, -1);
+                    }
+                }
+                state = RELEASED;
+            }
+            if (wasCommitted) {
+                save();
+            }
+        }
+    }
+
+    /**
+     * Capacities of one product for a contiguous run of days starting at firstDay, with two
+     * bottom-up segment trees over them: the minimum of the recorded capacities less held units,
+     * and the most units held on any day left unset, or -1 if no day is unset. Unset days read as
+     * the product's default capacity less their held units, and the default is only known to the
+     * caller, so they are kept out of the first tree. Leaves sit at {@code length + index}, and node
+     * i covers nodes 2i and 2i+1.
+     * The object doubles as the product's lock.
+     */
+    private static class Days {
+        private long firstDay;
+        private int[] capacities;
+        private int[] held;
+        private int[] minTree;
+        private int[] unsetHeldTree;
+
+        Days(long firstDay) {
+            this.firstDay = firstDay;
+            this.capacities = new int[8];
+            this.held = new int[8];
+            Arrays.fill(capacities, UNSET);
+            rebuild();
+        }
+
+        int lookup(long epochDay) {
+            long index = epochDay - firstDay;
+            return index >= 0 && index < capacities.length ? capacities[(int) index] : UNSET;
+        }
+
+        int available(long epochDay, int defaultCapacity) {
+            long index = epochDay - firstDay;
+            if (index < 0 || index >= capacities.length) {
+                return defaultCapacity;
+            }
+            int capacity = capacities[(int) index] == UNSET ? defaultCapacity : capacities[(int) index];
+            return capacity - held[(int) index];
+        }
+
+        /**
+         * Grows the arrays so that they cover a day, keeping some slack on the growing side.
+         *
+         * @return The index of the day.
+         */
+        int ensureDay(long epochDay) {
+            if (epochDay < firstDay) {
+                int shift = (int) (firstDay - epochDay) + capacities.length / 2;
+                int[] grown = new int[capacities.length + shift];
+                Arrays.fill(grown, 0, shift, UNSET);
+                System.arraycopy(capacities, 0, grown, shift, capacities.length);
+                int[] grownHeld = new int[held.length + shift];
+                System.arraycopy(held, 0, grownHeld, shift, held.length);
+                capacities = grown;
+                held = grownHeld;
+                firstDay -= shift;
+                rebuild();
+            } else if (epochDay - firstDay >= capacities.length) {
+                int length = (int) Math.max(epochDay - firstDay + 1 + capacities.length / 2, capacities.length * 2L);
+                int oldLength = capacities.length;
+                capacities = Arrays.copyOf(capacities, length);
+                Arrays.fill(capacities, oldLength, length, UNSET);
+                held = Arrays.copyOf(held, length);
+                rebuild();
+            }
+            return (int) (epochDay - firstDay);
+        }
+
+        void set(int index, int capacity) {
+            capacities[index] = capacity;
+            update(index);
+        }
+
+        void hold(int index, int delta) {
+            held[index] += delta;
+            update(index);
+        }
+
+        /**
+         * Returns the minimum capacity less held units over the days from fromDay to toDay, inclusive,
+         * counting days without an entry as defaultCapacity less their held units, and days outside
+         * the array as defaultCapacity.
+         */
+        int min(long fromDay, long toDay, int defaultCapacity) {
+            int n = capacities.length;
+            long lastDay = firstDay + n - 1;
+            int unsetHeld = fromDay < firstDay || toDay > lastDay ? 0 : -1;
+            if (toDay < firstDay || fromDay > lastDay) {
+                return defaultCapacity;
+            }
+
+            int min = Integer.MAX_VALUE;
+            int lo = (int) (Math.max(fromDay, firstDay) - firstDay) + n;
+            int hi = (int) (Math.min(toDay, lastDay) - firstDay) + n + 1;
+            while (lo < hi) {
+                if ((lo & 1) == 1) {
+                    min = Math.min(min, minTree[lo]);
+                    unsetHeld = Math.max(unsetHeld, unsetHeldTree[lo]);
+                    lo++;
+                }
+                if ((hi & 1) == 1) {
+                    hi--;
+                    min = Math.min(min, minTree[hi]);
+                    unsetHeld = Math.max(unsetHeld, unsetHeldTree[hi]);
+                }
+                lo >>= 1;
+                hi >>= 1;
+            }
+            return unsetHeld >= 0 ? Math.min(min, defaultCapacity - unsetHeld) : min;
+        }
+
+        private void update(int index) {
+            int n = capacities.length;
+            int node = n + index;
+            minTree[node] = leaf(index);
+            unsetHeldTree[node] = unsetHeld(index);
+            for (node >>= 1; node >= 1; node >>= 1) {
+                minTree[node] = Math.min(minTree[2 * node], minTree[2 * node + 1]);
+                unsetHeldTree[node] = Math.max(unsetHeldTree[2 * node], unsetHeldTree[2 * node + 1]);
+            }
+        }
+
+        private int leaf(int index) {
+            return capacities[index] == UNSET ? Integer.MAX_VALUE : capacities[index] - held[index];
+        }
+
+        private int unsetHeld(int index) {
+            return capacities[index] == UNSET ? held[index] : -1;
+        }
+
+        private void rebuild() {
+            int n = capacities.length;
+            minTree = new int[2 * n];
+            unsetHeldTree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                minTree[n + i] = leaf(i);
+                unsetHeldTree[n + i] = unsetHeld(i);
+            }
+            for (int node = n - 1; node >= 1; node--) {
+                minTree[node] = Math.min(minTree[2 * node], minTree[2 * node + 1]);
+                unsetHeldTree[node] = Math.max(unsetHeldTree[2 * node], unsetHeldTree[2 * node + 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package products;
+
+/**
+ * Describes the result of compacting an availability file: the rows and bytes of the checkpoint
+ * and journal before compaction against those of the new checkpoint, and the time taken to
+ * parse each.
+ */
+public class CompactionReport {
+    private final String fileName;
+    private final int rowsBefore;
+    private final int rowsAfter;
+    private final long bytesBefore;
+    private final long bytesAfter;
+    private final long parseNanosBefore;
+    private final long parseNanosAfter;
+
+    CompactionReport(String fileName, int rowsBefore, int rowsAfter, long bytesBefore, long bytesAfter,
+                     long parseNanosBefore, long parseNanosAfter) {
+        this.fileName = fileName;
+        this.rowsBefore = rowsBefore;
+        this.rowsAfter = rowsAfter;
+        this.bytesBefore = bytesBefore;
+        this.bytesAfter = bytesAfter;
+        this.parseNanosBefore = parseNanosBefore;
+        this.parseNanosAfter = parseNanosAfter;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getRowsBefore() {
+        return rowsBefore;
+    }
+
+    public int getRowsAfter() {
+        return rowsAfter;
+    }
+
+    public int getRowsReclaimed() {
+        return rowsBefore - rowsAfter;
+    }
+
+    public long getBytesBefore() {
+        return bytesBefore;
+    }
+
+    public long getBytesAfter() {
+        return bytesAfter;
+    }
+
+    public long getBytesReclaimed() {
+        return bytesBefore - bytesAfter;
+    }
+
+    public long getParseNanosBefore() {
+        return parseNanosBefore;
+    }
+
+    public long getParseNanosAfter() {
+        return parseNanosAfter;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d -> %d rows (%d reclaimed), %d -> %d bytes (%d reclaimed), parse %.2f -> %.2f ms",
+                fileName, rowsBefore, rowsAfter, getRowsReclaimed(), bytesBefore, bytesAfter, getBytesReclaimed(),
+                parseNanosBefore / 1e6, parseNanosAfter / 1e6);
+    }
+}
@@ -4,22 +4,22 @@ import core.App;
 import reservationlogs.Logger;
 import services.TravelParser;
 
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.IntPredicate;
 
 /**
  * Represents a flight product with details such as airline, departure/arrival times,
  * ticket class, and availability management.
  */
 public class Flight extends Product {
+    private static final AvailabilityLedger availabilityLedger = new AvailabilityLedger("products/flightavailability.txt");
     private String flightID;
     private String airline;
     private String departureCity;
@@ -34,9 +34,8 @@ public class Flight extends Product {
     private LocalTime leg1ArrivalTime;
     private LocalTime leg2DepartureTime;
     private LocalTime leg2ArrivalTime;
-    private DateTimeFormatter formatter = DateTimeFormatter.ofPattern("H:mm");
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("H:mm");
     private boolean dayChange; // Indicates if the flight crosses midnight
-    private HashMap<LocalDate, Integer> availableDates; // Availability map: date -> capacity
 
     /**
      * Constructor for direct flights.
@@ -55,7 +54,6 @@ public class Flight extends Product {
                   int availableCount, String departureTime, String arrivalTime,
                   String ticketClass, double price, int id) {
         super(availableCount);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("H:mm");
         this.airline = airline;
         this.departureCity = departureCity;
         this.arrivalCity = arrivalCity;
@@ -71,7 +69,6 @@ public class Flight extends Product {
         this.leg2ArrivalTime = null;
         this.flightID = String.valueOf(id);
         this.dayChange = this.arrivalTime.isBefore(this.departureTime);
-        this.availableDates = new HashMap<>();
     }
 
     /**
@@ -95,7 +92,6 @@ public class Flight extends Product {
                   String leg2DepartureTime, String leg2ArrivalTime, int availableCount,
                   String ticketClass, double price, int id) {
         super(availableCount);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("H:mm");
         this.flightID = String.valueOf(id);
         this.airline = airline;
         this.departureCity = departureCity;
@@ -111,7 +107,6 @@ public class Flight extends Product {
         this.departureTime = this.leg1DepartureTime;
         this.arrivalTime = this.leg2ArrivalTime;
         this.dayChange = this.arrivalTime.isBefore(this.departureTime);
-        this.availableDates = new HashMap<>();
     }
 
     /**
@@ -132,94 +127,49 @@ public class Flight extends Product {
      * @return List of matching flights.
      */
     public static ArrayList<Flight> selectByCity(String city, String depCity) {
-        ArrayList<Flight> flightsInCity = new ArrayList<>();
-        for (Flight flight : TravelParser.getFlightsDict().values()) {
-            if (flight.getArrivalCity().equalsIgnoreCase(city) && flight.getDepartureCity().equalsIgnoreCase(depCity)) {
-                flightsInCity.add(flight);
-            }
-        }
-        return flightsInCity;
+        return new ArrayList<>(TravelParser.getFlightsOnRoute(depCity, city));
     }
 
     /**
-     * Loads flight availability from a file.
+     * Loads seat availability for every flight with a single pass over the availability file.
+     * Later lookups, bookings and cancellations are served from memory.
      *
      * @throws FileNotFoundException If the file is not found.
      */
-    public void flightAvailabilityParser() throws FileNotFoundException {
-        File file = new File("products/flightavailability.txt");
-        Scanner reader = new Scanner(file);
-        this.availableDates.clear();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-        while (reader.hasNextLine()) {
-            String line = reader.nextLine();
-            String[] dataArray = line.split(",");
-            if (dataArray.length < 3) continue;
-
-            int lineId = Integer.parseInt(dataArray[0]);
-            LocalDate date = LocalDate.parse(dataArray[1], formatter);
-            int capacity = Integer.parseInt(dataArray[2]);
-
-            if (lineId == this.getId()) {
-                this.availableDates.put(date, capacity);
-            }
-        }
-        reader.close();
+    public static void preloadAvailability() throws FileNotFoundException {
+        availabilityLedger.load();
     }
 
     /**
-     * Updates the availability file with current data.
+     * Gives back the seats taken by bookings whose reservation was never written.
      *
-     * @throws FileNotFoundException If the file is not found.
+     * @param reserved Tells whether a reservation ID was written.
+     * @return The number of flight dates rolled back.
+     * @throws IOException If the restored seats cannot be written.
      */
-    public void updateFile() throws FileNotFoundException {
-        File file = new File("products/flightavailability.txt");
-        List<String> lines = new ArrayList<>();
-        try (Scanner reader = new Scanner(file)) {
-            while (reader.hasNextLine()) {
-                lines.add(reader.nextLine());
-            }
-        }
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        List<String> updatedLines = new ArrayList<>();
-        Set<LocalDate> updatedDates = new HashSet<>();
-
-        for (String line : lines) {
-            String[] dataArray = line.split(",");
-            if (dataArray.length < 3) {
-                updatedLines.add(line);
-                continue;
-            }
-
-            int lineId = Integer.parseInt(dataArray[0]);
-            LocalDate lineDate = LocalDate.parse(dataArray[1], formatter);
-            int lineCapacity = Integer.parseInt(dataArray[2]);
-
-            if (lineId == this.getId() && availableDates.containsKey(lineDate)) {
-                int newCapacity = availableDates.get(lineDate);
-                updatedLines.add(this.getId() + "," + lineDate.format(formatter) + "," + newCapacity);
-                updatedDates.add(lineDate);
-            } else {
-                updatedLines.add(line);
-            }
-        }
+    public static int rollBackUnreserved(IntPredicate reserved) throws IOException {
+        return availabilityLedger.rollBackUnreserved(reserved);
+    }
 
-        for (LocalDate date : availableDates.keySet()) {
-            if (!updatedDates.contains(date)) {
-                int newCapacity = availableDates.get(date);
-                updatedLines.add(this.getId() + "," + date.format(formatter) + "," + newCapacity);
-            }
-        }
+    /**
+     * Rewrites the flight availability file without dates before the horizon and without
+     * dates that still have every seat free.
+     *
+     * @param horizon The first date to keep.
+     * @return The rows and bytes reclaimed, or null if the file could not be compacted.
+     */
+    public static CompactionReport compactAvailability(LocalDate horizon) {
+        return availabilityLedger.compact(horizon, id -> {
+            Flight flight = retrieveFlight(id);
+            return flight == null ? -1 : flight.getAvailableCount();
+        });
+    }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-            for (String updatedLine : updatedLines) {
-                writer.println(updatedLine);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    /**
+     * Persists availability changes made since the last update.
+     */
+    public void updateFile() {
+        availabilityLedger.save();
     }
 
     /**
@@ -228,29 +178,31 @@ public class Flight extends Product {
      * @param date Date of the flight.
      */
     public void book(LocalDate date) {
-        try {
-            if (availableDates == null || availableDates.isEmpty()) {
-                flightAvailabilityParser();
-            }
+        if (!availabilityLedger.reserve(getId(), date, date, getAvailableCount())) {
+            System.out.println("No more available seats on " + date);
+            return;
+        }
 
-            if (availableDates.containsKey(date)) {
-                int currentCap = availableDates.get(date);
-                if (currentCap > 0) {
-                    availableDates.put(date, currentCap - 1);
-                } else {
-                    System.out.println("No more available seats on " + date);
-                    return;
-                }
-            } else {
-                int defaultCapacity = getAvailableCount();
-                availableDates.put(date, defaultCapacity - 1);
-            }
+        updateFile();
+        logReservation();
+    }
 
-            updateFile();
-            Logger.logFlightreservation(App.user.getUsername(), this.toString(), departureTime.format(formatter), arrivalTime.format(formatter), ticketClass);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Takes a seat on a given date without persisting the change, so that it can be
+     * committed or released together with the rest of a booking.
+     *
+     * @param date Date of the flight.
+     * @return The hold, or null if no seats are left.
+     */
+    public InventoryHold hold(LocalDate date) {
+        return availabilityLedger.hold(getId(), date, date, getAvailableCount());
+    }
+
+    /**
+     * Writes a flight reservation entry for the current user to the activity log.
+     */
+    public void logReservation() {
+        Logger.logFlightreservation(App.user.getUsername(), this.toString(), departureTime.format(formatter), arrivalTime.format(formatter), ticketClass);
     }
 
     /**
@@ -259,29 +211,17 @@ public class Flight extends Product {
      * @param date Date of the flight.
      */
     public void cancelBook(LocalDate date) {
-        try {
-            if (availableDates == null || availableDates.isEmpty()) {
-                flightAvailabilityParser();
-            }
-
-            if (availableDates.containsKey(date)) {
-                int currentCap = availableDates.get(date);
-                int maxCapacity = getAvailableCount();
-                if (currentCap < maxCapacity) {
-                    availableDates.put(date, currentCap + 1);
-                    System.out.println("Flight booking cancelled successfully for " + date);
-                } else {
-                    System.out.println("Cannot cancel booking - flight already at maximum capacity for " + date);
-                    return;
-                }
-            } else {
+        switch (availabilityLedger.release(getId(), date, getAvailableCount())) {
+            case RELEASED:
+                System.out.println("Flight booking cancelled successfully for " + date);
+                updateFile();
+                break;
+            case AT_CAPACITY:
+                System.out.println("Cannot cancel booking - flight already at maximum capacity for " + date);
+                break;
+            case NOT_BOOKED:
                 System.out.println("No flight booking record found for " + date);
-                return;
-            }
-
-            updateFile();
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+                break;
         }
     }
 
@@ -355,14 +295,7 @@ public class Flight extends Product {
     }
 
     public int getAvailabilityForDate(LocalDate date) {
-        if (availableDates == null || availableDates.isEmpty()) {
-            try {
-                flightAvailabilityParser();
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
-        return availableDates.getOrDefault(date, getAvailableCount());
+        return availabilityLedger.get(getId(), date, getAvailableCount());
     }
 
     public static ArrayList<Flight> availableSeatsListMaker(LocalDate dateStart, ArrayList<Flight> arrayList) {
@@ -3,26 +3,25 @@ package products;
 import core.App;
 import reservationlogs.Logger;
 import services.TravelParser;
-import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Scanner;
+import java.util.function.IntPredicate;
 
 /**
  * Represents a hotel with attributes such as name, city, room type, and availability.
- * Handles booking and cancellation operations with file-based persistence.
+ * Handles booking and cancellation operations; daily availability for all hotels is kept
+ * in a shared {@link AvailabilityLedger} backed by products/hotelavailability.txt.
  */
 public class Hotel extends Product {
+    private static final AvailabilityLedger availabilityLedger = new AvailabilityLedger("products/hotelavailability.txt");
     private int id;
     private String name;
     private String city;
     private String roomType;
     private double pricePerNight;
     private double distanceToAirport;
-    private HashMap<LocalDate, Integer> availableDates;
 
     /**
      * Constructs a Hotel instance.
@@ -43,7 +42,6 @@ public class Hotel extends Product {
         this.roomType = roomType;
         this.pricePerNight = pricePerNight;
         this.distanceToAirport = distanceToAirport;
-        this.availableDates = new HashMap<>();
         this.id = id;
     }
 
@@ -58,27 +56,38 @@ public class Hotel extends Product {
     }
 
     /**
-     * Parses hotel availability data from a file and populates the availability map.
+     * Loads the availability of every hotel with a single pass over the availability file.
+     * Later availability lookups, bookings and cancellations are served from memory.
      *
      * @throws FileNotFoundException If the file is not found.
      */
-    public void hotelAvailabilityParser() throws FileNotFoundException {
-        File file = new File("products/hotelavailability.txt");
-        Scanner reader = new Scanner(file);
-        this.availableDates.clear();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    public static void preloadAvailability() throws FileNotFoundException {
+        availabilityLedger.load();
+    }
 
-        while (reader.hasNextLine()) {
-            String data = reader.nextLine();
-            String[] dataArray = data.split(",");
-            int id = Integer.parseInt(dataArray[0]);
-            LocalDate date = LocalDate.parse(dataArray[1], formatter);
-            int capacity = Integer.parseInt(dataArray[2]);
-            if (id == this.id) {
-                this.availableDates.put(date, capacity);
-            }
-        }
-        reader.close();
+    /**
+     * Gives back the rooms taken by bookings whose reservation was never written.
+     *
+     * @param reserved Tells whether a reservation ID was written.
+     * @return The number of nights rolled back.
+     * @throws IOException If the restored nights cannot be written.
+     */
+    public static int rollBackUnreserved(IntPredicate reserved) throws IOException {
+        return availabilityLedger.rollBackUnreserved(reserved);
+    }
+
+    /**
+     * Rewrites the hotel availability file without nights before the horizon and without
+     * nights that still have every room free.
+     *
+     * @param horizon The first night to keep.
+     * @return The rows and bytes reclaimed, or null if the file could not be compacted.
+     */
+    public static CompactionReport compactAvailability(LocalDate horizon) {
+        return availabilityLedger.compact(horizon, id -> {
+            Hotel hotel = retrieveHotel(id);
+            return hotel == null ? -1 : hotel.getAvailableCount();
+        });
     }
 
     /**
@@ -88,64 +97,15 @@ public class Hotel extends Product {
      * @return A list of hotels located in the specified city.
      */
     public static ArrayList<Hotel> selectByCity(String city) {
-        TravelParser.parseHotels();
-        ArrayList<Hotel> hotelsInCity = new ArrayList<>();
-        for (Hotel hotel : TravelParser.getHotelsDict().values()) {
-            if (hotel.getCity().equalsIgnoreCase(city)) {
-                hotelsInCity.add(hotel);
-            }
-        }
-        return hotelsInCity;
+        TravelParser.reloadHotelsIfChanged();
+        return new ArrayList<>(TravelParser.getHotelsInCity(city));
     }
 
     /**
      * Updates the hotel availability file with current data.
-     *
-     * @throws FileNotFoundException If the file is not found.
      */
-    public void updateFile() throws FileNotFoundException {
-        File file = new File("products/hotelavailability.txt");
-        java.util.List<String> lines = new java.util.ArrayList<>();
-
-        try (Scanner reader = new Scanner(file)) {
-            while (reader.hasNextLine()) {
-                lines.add(reader.nextLine());
-            }
-        }
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        java.util.List<String> updatedLines = new java.util.ArrayList<>();
-        java.util.Set<LocalDate> updatedDates = new java.util.HashSet<>();
-
-        for (String line : lines) {
-            String[] dataArray = line.split(",");
-            int lineId = Integer.parseInt(dataArray[0]);
-            LocalDate lineDate = LocalDate.parse(dataArray[1], formatter);
-            int lineCapacity = Integer.parseInt(dataArray[2]);
-
-            if (lineId == this.id && availableDates.containsKey(lineDate)) {
-                int newCapacity = availableDates.get(lineDate);
-                updatedLines.add(this.id + "," + lineDate.format(formatter) + "," + newCapacity);
-                updatedDates.add(lineDate);
-            } else {
-                updatedLines.add(line);
-            }
-        }
-
-        for (LocalDate date : availableDates.keySet()) {
-            if (!updatedDates.contains(date)) {
-                int newCapacity = availableDates.get(date);
-                updatedLines.add(this.id + "," + date.format(formatter) + "," + newCapacity);
-            }
-        }
-
-        try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(file))) {
-            for (String updatedLine : updatedLines) {
-                writer.println(updatedLine);
-            }
-        } catch (java.io.IOException e) {
-            e.printStackTrace();
-        }
+    public void updateFile() {
+        availabilityLedger.save();
     }
 
     /**
@@ -154,28 +114,37 @@ public class Hotel extends Product {
      * @param date The date for which a room is to be booked.
      */
     public void book(LocalDate date) {
-        try {
-            if (availableDates == null || availableDates.isEmpty()) {
-                hotelAvailabilityParser();
-            }
-
-            if (availableDates.containsKey(date)) {
-                int currentCap = availableDates.get(date);
-                if (currentCap > 0) {
-                    availableDates.put(date, currentCap - 1);
-                } else {
-                    System.out.println("No more available rooms on " + date);
-                    return;
-                }
-            } else {
-                int defaultCapacity = getAvailableCount();
-                availableDates.put(date, defaultCapacity - 1);
-            }
+        bookRange(date, date);
+    }
 
-            updateFile();
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+    /**
+     * Books a room for every night from start to end, inclusive. All nights are checked
+     * before any of them is taken, so a stay is either booked in full or not at all, and
+     * the changes are persisted with a single write.
+     *
+     * @param start The first night of the stay.
+     * @param end   The last night of the stay.
+     * @return true if the stay was booked, false if some night has no rooms left.
+     */
+    public boolean bookRange(LocalDate start, LocalDate end) {
+        if (!availabilityLedger.reserve(getId(), start, end, getAvailableCount())) {
+            System.out.println("No more available rooms between " + start + " and " + end);
+            return false;
         }
+        updateFile();
+        return true;
+    }
+
+    /**
+     * Takes a room for every night from start to end, inclusive, without persisting the change,
+     * so that it can be committed or released together with the rest of a booking.
+     *
+     * @param start The first night of the stay.
+     * @param end   The last night of the stay.
+     * @return The hold, or null if some night has no rooms left.
+     */
+    public InventoryHold holdRange(LocalDate start, LocalDate end) {
+        return availabilityLedger.hold(getId(), start, end, getAvailableCount());
     }
 
     /**
@@ -184,30 +153,31 @@ public class Hotel extends Product {
      * @param date The date for which the booking is to be canceled.
      */
     public void cancelBook(LocalDate date) {
-        try {
-            if (availableDates == null || availableDates.isEmpty()) {
-                hotelAvailabilityParser();
-            }
+        cancelRange(date, date);
+    }
 
-            if (availableDates.containsKey(date)) {
-                int currentCap = availableDates.get(date);
-                int maxCapacity = getAvailableCount();
-                if (currentCap < maxCapacity) {
-                    availableDates.put(date, currentCap + 1);
+    /**
+     * Cancels a booking for every night from start to end, inclusive, and persists
+     * the changes with a single write. Nights without a booking are reported and skipped.
+     *
+     * @param start The first night of the stay.
+     * @param end   The last night of the stay.
+     */
+    public void cancelRange(LocalDate start, LocalDate end) {
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            switch (availabilityLedger.release(getId(), date, getAvailableCount())) {
+                case RELEASED:
                     System.out.println("Booking cancelled successfully for " + date);
-                } else {
+                    break;
+                case AT_CAPACITY:
                     System.out.println("Cannot cancel booking - room capacity already at maximum for " + date);
-                    return;
-                }
-            } else {
-                System.out.println("No booking record found for " + date);
-                return;
+                    break;
+                case NOT_BOOKED:
+                    System.out.println("No booking record found for " + date);
+                    break;
             }
-
-            updateFile();
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
         }
+        updateFile();
     }
 
     /**
@@ -219,6 +189,20 @@ public class Hotel extends Product {
      * @return A list of hotels available for all dates in the range.
      */
     public static ArrayList<Hotel> availableRoomsListMaker(LocalDate dateStart, LocalDate dateEnd, ArrayList<Hotel> hotelList) {
+        return hotelsWithAtLeast(1, dateStart, dateEnd, hotelList);
+    }
+
+    /**
+     * Filters hotels that have at least the given number of rooms free on every date in a range,
+     * for example to place a group booking.
+     *
+     * @param rooms     Number of rooms needed each night.
+     * @param dateStart Start date of the range.
+     * @param dateEnd   End date of the range.
+     * @param hotelList List of hotels to filter.
+     * @return A list of hotels with enough rooms for all dates in the range.
+     */
+    public static ArrayList<Hotel> hotelsWithAtLeast(int rooms, LocalDate dateStart, LocalDate dateEnd, ArrayList<Hotel> hotelList) {
         ArrayList<Hotel> newHotelList = new ArrayList<>();
 
         if (dateEnd.isBefore(dateStart)) {
@@ -226,16 +210,7 @@ public class Hotel extends Product {
         }
 
         for (Hotel hotel : hotelList) {
-            boolean allDatesAvailable = true;
-
-            for (LocalDate d = dateStart; !d.isAfter(dateEnd); d = d.plusDays(1)) {
-                if (hotel.getAvailabilityForDate(d) <= 0) {
-                    allDatesAvailable = false;
-                    break;
-                }
-            }
-
-            if (allDatesAvailable) {
+            if (hotel.getMinAvailability(dateStart, dateEnd) >= rooms) {
                 newHotelList.add(hotel);
             }
         }
@@ -243,6 +218,23 @@ public class Hotel extends Product {
         return newHotelList;
     }
 
+    /**
+     * Checks whether another hotel describes the same listing, ignoring availability.
+     *
+     * @param other The hotel to compare with.
+     * @return true if the ID, descriptive fields, room count and prices are equal.
+     */
+    public boolean sameListing(Hotel other) {
+        return other != null
+                && id == other.id
+                && name.equals(other.name)
+                && city.equals(other.city)
+                && roomType.equals(other.roomType)
+                && getAvailableCount() == other.getAvailableCount()
+                && Double.compare(pricePerNight, other.pricePerNight) == 0
+                && Double.compare(distanceToAirport, other.distanceToAirport) == 0;
+    }
+
     @Override
     public String toString() {
         return name + " " + city + " " + roomType;
@@ -273,14 +265,17 @@ public class Hotel extends Product {
     }
 
     public int getAvailabilityForDate(LocalDate date) {
-        if (availableDates == null || availableDates.isEmpty()) {
-            try {
-                hotelAvailabilityParser();
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
+        return availabilityLedger.get(getId(), date, this.getAvailableCount());
+    }
 
-        return availableDates.getOrDefault(date, this.getAvailableCount());
+    /**
+     * Returns the fewest rooms free on any date in a range.
+     *
+     * @param dateStart Start date of the range.
+     * @param dateEnd   End date of the range, inclusive.
+     * @return The minimum number of free rooms over the range.
+     */
+    public int getMinAvailability(LocalDate dateStart, LocalDate dateEnd) {
+        return availabilityLedger.minAvailable(getId(), dateStart, dateEnd, this.getAvailableCount());
     }
 }
\ No newline at end of file
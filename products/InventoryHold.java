@@ -0,0 +1,26 @@
+package products;
+
+import java.io.IOException;
+
+/**
+ * Capacity taken from a product in memory as part of a larger booking. The capacity is no longer
+ * offered to anyone else from the moment the hold is created, but nothing is written until
+ * {@link #commit(int)}, so a booking that fails part way can give everything back with {@link #release()}.
+ */
+public interface InventoryHold {
+
+    /**
+     * Writes the held change to the availability journal and forces it to disk. The rows are
+     * tagged with the booking they belong to, so that they can be rolled back on the next start
+     * if the booking's reservation is never written.
+     *
+     * @param booking The ID of the reservation the capacity is taken for.
+     * @throws IOException If the change cannot be written.
+     */
+    void commit(int booking) throws IOException;
+
+    /**
+     * Returns the held capacity. If the hold was already committed, the restored capacity is persisted too.
+     */
+    void release();
+}
@@ -2,26 +2,24 @@ package products;
 
 import services.TravelParser;
 
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.IntPredicate;
 
 /**
  * Represents a taxi service product with availability tracking and booking capabilities.
  */
 public class Taxi extends Product {
+    private static final TaxiSchedule schedule = new TaxiSchedule("products/taxiavailability.txt");
+
     private int id;
     private String city;
     private String taxiType;
     private double baseFare;
     private double perKmRate;
 
-    private HashMap<LocalDateTime, Integer> availableDateTimes;
-
     /**
      * Constructs a new Taxi with specified parameters.
      *
@@ -39,7 +37,6 @@ public class Taxi extends Product {
         this.baseFare = baseFare;
         this.perKmRate = perKmRate;
         this.id = id;
-        this.availableDateTimes = new HashMap<>();
     }
 
     /**
@@ -53,48 +50,51 @@ public class Taxi extends Product {
     }
 
     /**
-     * Loads taxi availability data from file for this taxi's ID.
+     * Loads the booked rides of every taxi with a single pass over the availability file.
      *
      * @throws FileNotFoundException if the availability file cannot be found
      */
-    public void taxiAvailabilityParser() throws FileNotFoundException {
-        File file = new File("products/taxiavailability.txt");
-        Scanner reader = new Scanner(file);
-
-        this.availableDateTimes.clear();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-        while (reader.hasNextLine()) {
-            String line = reader.nextLine();
-            String[] dataArray = line.split(",");
-            if (dataArray.length < 3) {
-                continue;
-            }
+    public static void preloadAvailability() throws FileNotFoundException {
+        schedule.load();
+    }
 
-            int lineId = Integer.parseInt(dataArray[0]);
-            LocalDateTime dateTime = LocalDateTime.parse(dataArray[1], formatter);
-            int capacity = Integer.parseInt(dataArray[2]);
+    /**
+     * Gives back the cars taken by bookings whose reservation was never written.
+     *
+     * @param reserved Tells whether a reservation ID was written.
+     * @return The number of rides rolled back.
+     * @throws IOException If the restored rides cannot be written.
+     */
+    public static int rollBackUnreserved(IntPredicate reserved) throws IOException {
+        return schedule.rollBackUnreserved(reserved);
+    }
 
-            if (lineId == this.id) {
-                this.availableDateTimes.put(dateTime, capacity);
-            }
-        }
-        reader.close();
+    /**
+     * Rewrites the taxi availability file without rides that arrived before the horizon and
+     * without rides that are no longer booked.
+     *
+     * @param horizon Rides arriving before this time are dropped.
+     * @return The rows and bytes reclaimed, or null if the file could not be compacted.
+     */
+    public static CompactionReport compactAvailability(LocalDateTime horizon) {
+        return schedule.compact(horizon);
     }
 
     /**
-     * Returns a list of taxis available at a specific date and time.
+     * Returns a list of taxis with a car free for a whole ride, from pickup until arrival.
      *
-     * @param startDateTime The desired date and time
+     * @param pickupDateTime The desired pickup date and time
+     * @param travelMinutes Length of the ride in minutes
      * @param taxiList List of taxis to check availability from
      * @return List of available taxis
      */
-    public static ArrayList<Taxi> availableCarsListMaker(LocalDateTime startDateTime,
+    public static ArrayList<Taxi> availableCarsListMaker(LocalDateTime pickupDateTime, int travelMinutes,
                                                          ArrayList<Taxi> taxiList) {
         ArrayList<Taxi> newTaxiList = new ArrayList<>();
+        LocalDateTime arrivalDateTime = pickupDateTime.plusMinutes(travelMinutes);
 
         for (Taxi taxi : taxiList) {
-            if (taxi.getAvailabilityForDateTime(startDateTime) > 0) {
+            if (taxi.getMinAvailability(pickupDateTime, arrivalDateTime) > 0) {
                 newTaxiList.add(taxi);
             }
         }
@@ -102,6 +102,48 @@ public class Taxi extends Product {
         return newTaxiList;
     }
 
+    /**
+     * Finds the taxis with a car free for a whole ride for each of several candidate pickup times.
+     * Each taxi's timeline is scanned once for all candidates.
+     *
+     * @param pickupDateTimes Candidate pickup times
+     * @param travelMinutes Length of the ride in minutes
+     * @param taxiList List of taxis to check availability from
+     * @return The available taxis for each pickup time, ordered by pickup time
+     */
+    public static TreeMap<LocalDateTime, ArrayList<Taxi>> availableCarsByPickup(Collection<LocalDateTime> pickupDateTimes,
+                                                                               int travelMinutes,
+                                                                               ArrayList<Taxi> taxiList) {
+        TreeMap<LocalDateTime, ArrayList<Taxi>> taxisByPickup = new TreeMap<>();
+        for (LocalDateTime pickup : pickupDateTimes) {
+            taxisByPickup.put(pickup, new ArrayList<>());
+        }
+        if (taxisByPickup.isEmpty()) {
+            return taxisByPickup;
+        }
+
+        List<LocalDateTime> pickups = new ArrayList<>(taxisByPickup.keySet());
+        for (Taxi taxi : taxiList) {
+            int[] free = schedule.minAvailable(taxi.id, pickups, travelMinutes, taxi.getAvailableCount());
+            for (int i = 0; i < free.length; i++) {
+                if (free[i] > 0) {
+                    taxisByPickup.get(pickups.get(i)).add(taxi);
+                }
+            }
+        }
+        return taxisByPickup;
+    }
+
+    /**
+     * Returns the driving time between the airport and a hotel, at an average of 60 km/h.
+     *
+     * @param hotel The hotel at the other end of the ride
+     * @return The travel time in whole minutes, rounded up
+     */
+    public static int travelMinutes(Hotel hotel) {
+        return (int) Math.ceil((hotel.getDistanceToAirport() / 60.0) * 60);
+    }
+
     /**
      * Calculates the total fare based on hotel location.
      *
@@ -113,89 +155,39 @@ public class Taxi extends Product {
     }
 
     /**
-     * Updates the availability file with current availability data.
+     * Books a taxi for a specific date and time.
      *
-     * @throws FileNotFoundException if the availability file cannot be found
+     * @param dateTime The date and time to book the taxi
      */
-    public void updateFile() throws FileNotFoundException {
-        File file = new File("products/taxiavailability.txt");
-        List<String> lines = new ArrayList<>();
-
-        try (Scanner reader = new Scanner(file)) {
-            while (reader.hasNextLine()) {
-                lines.add(reader.nextLine());
-            }
-        }
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        List<String> updatedLines = new ArrayList<>();
-        Set<LocalDateTime> updatedDateTimes = new HashSet<>();
-
-        for (String line : lines) {
-            String[] dataArray = line.split(",");
-            if (dataArray.length < 3) {
-                updatedLines.add(line);
-                continue;
-            }
-
-            int lineId = Integer.parseInt(dataArray[0]);
-            LocalDateTime lineDateTime = LocalDateTime.parse(dataArray[1], formatter);
-            int lineCapacity = Integer.parseInt(dataArray[2]);
-
-            if (lineId == this.id && availableDateTimes.containsKey(lineDateTime)) {
-                int newCapacity = availableDateTimes.get(lineDateTime);
-                updatedLines.add(this.id + "," + lineDateTime.format(formatter) + "," + newCapacity);
-                updatedDateTimes.add(lineDateTime);
-            } else {
-                updatedLines.add(line);
-            }
-        }
-
-        for (LocalDateTime dateTime : availableDateTimes.keySet()) {
-            if (!updatedDateTimes.contains(dateTime)) {
-                int newCapacity = availableDateTimes.get(dateTime);
-                updatedLines.add(this.id + "," + dateTime.format(formatter) + "," + newCapacity);
-            }
-        }
+    public void book(LocalDateTime dateTime) {
+        reserve(dateTime, dateTime);
+    }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-            for (String updatedLine : updatedLines) {
-                writer.println(updatedLine);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * Books one car for a ride, keeping it occupied from pickup until arrival.
+     *
+     * @param pickup The pickup time
+     * @param arrival The arrival time, inclusive
+     * @return true if a car was free for the whole ride and has been booked
+     */
+    public boolean reserve(LocalDateTime pickup, LocalDateTime arrival) {
+        if (!schedule.reserve(id, pickup, arrival, getAvailableCount())) {
+            System.out.println("No more available taxis between " + pickup + " and " + arrival);
+            return false;
         }
+        return true;
     }
 
     /**
-     * Books a taxi for a specific date and time.
+     * Takes one car for a ride without persisting the change, so that it can be committed
+     * or released together with the rest of a booking.
      *
-     * @param dateTime The date and time to book the taxi
+     * @param pickup The pickup time
+     * @param arrival The arrival time, inclusive
+     * @return The hold, or null if no car is free for the whole ride
      */
-    public void book(LocalDateTime dateTime) {
-        try {
-            if (availableDateTimes == null || availableDateTimes.isEmpty()) {
-                taxiAvailabilityParser();
-            }
-
-            if (availableDateTimes.containsKey(dateTime)) {
-                int currentCap = availableDateTimes.get(dateTime);
-                if (currentCap > 0) {
-                    availableDateTimes.put(dateTime, currentCap - 1);
-                } else {
-                    System.out.println("No more available taxis on " + dateTime);
-                    return;
-                }
-            } else {
-                int defaultCapacity = getAvailableCount();
-                availableDateTimes.put(dateTime, defaultCapacity - 1);
-            }
-
-            updateFile();
-
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
+    public InventoryHold hold(LocalDateTime pickup, LocalDateTime arrival) {
+        return schedule.hold(id, pickup, arrival, getAvailableCount());
     }
 
     /**
@@ -204,30 +196,20 @@ public class Taxi extends Product {
      * @param dateTime The date and time of the booking to cancel
      */
     public void cancelBook(LocalDateTime dateTime) {
-        try {
-            if (availableDateTimes == null || availableDateTimes.isEmpty()) {
-                taxiAvailabilityParser();
-            }
-
-            if (availableDateTimes.containsKey(dateTime)) {
-                int currentCap = availableDateTimes.get(dateTime);
-                int maxCapacity = getAvailableCount();
-                if (currentCap < maxCapacity) {
-                    availableDateTimes.put(dateTime, currentCap + 1);
-                    System.out.println("Taxi booking cancelled successfully for " + dateTime);
-                } else {
-                    System.out.println("Cannot cancel booking - taxi capacity already at maximum for " + dateTime);
-                    return;
-                }
-            } else {
-                System.out.println("No taxi booking record found for " + dateTime);
-                return;
-            }
-
-            updateFile();
+        release(dateTime, dateTime);
+    }
 
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+    /**
+     * Releases a ride booked with {@link #reserve(LocalDateTime, LocalDateTime)}.
+     *
+     * @param pickup The pickup time of the ride
+     * @param arrival The arrival time of the ride
+     */
+    public void release(LocalDateTime pickup, LocalDateTime arrival) {
+        if (schedule.release(id, pickup, arrival)) {
+            System.out.println("Taxi booking cancelled successfully for " + pickup);
+        } else {
+            System.out.println("No taxi booking record found for " + pickup);
         }
     }
 
@@ -293,15 +275,7 @@ public class Taxi extends Product {
      * @return List of taxis in the specified city
      */
     public static ArrayList<Taxi> selectByCity(String city) {
-        ArrayList<Taxi> taxisInCity = new ArrayList<>();
-
-        for (Taxi taxi : TravelParser.getTaxisDict().values()) {
-            if (taxi.getCity().equalsIgnoreCase(city)) {
-                taxisInCity.add(taxi);
-            }
-        }
-
-        return taxisInCity;
+        return new ArrayList<>(TravelParser.getTaxisInCity(city));
     }
 
     /**
@@ -311,14 +285,17 @@ public class Taxi extends Product {
      * @return Number of available taxis
      */
     public int getAvailabilityForDateTime(LocalDateTime dateTime) {
-        if (availableDateTimes == null || availableDateTimes.isEmpty()) {
-            try {
-                taxiAvailabilityParser();
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
+        return schedule.available(id, dateTime, getAvailableCount());
+    }
 
-        return availableDateTimes.getOrDefault(dateTime, getAvailableCount());
+    /**
+     * Returns the number of cars free for the whole of a ride.
+     *
+     * @param pickup The pickup time
+     * @param arrival The arrival time, inclusive
+     * @return The fewest free cars at any minute of the ride
+     */
+    public int getMinAvailability(LocalDateTime pickup, LocalDateTime arrival) {
+        return schedule.minAvailable(id, pickup, arrival, getAvailableCount());
     }
 }
\ No newline at end of file
@@ -0,0 +1,548 @@
+package products;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Keeps the booked rides of every taxi as time intervals instead of one row per 2-minute slot.
+ * A ride from pickup to arrival occupies one car for every minute from pickup up to and including
+ * arrival. Each taxi's occupancy is held as a step function in a sorted map, where an entry
+ * gives the number of cars in use from its time until the next entry, so booking or releasing a
+ * ride is one update and the occupancy at any time is a floor lookup. Anything spanning a ride,
+ * checking it or adding it, also walks the steps inside the ride, so it costs O(log n + k) for
+ * n steps of the taxi and k of them within the ride. Rides last minutes, so k stays small.
+ * <p>
+ * The availability file stores one "id,pickup/arrival,rides" row per distinct interval, persisted
+ * through an {@link AvailabilityJournal}. Rows in the old "id,slot,remaining" form are merged
+ * into intervals when the file is loaded, and the file is rewritten in the new form.
+ * <p>
+ * Like {@link AvailabilityLedger}, the schedule locks each taxi separately, so rides on different
+ * taxis are booked and released without waiting for each other.
+ */
+public class TaxiSchedule {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int LEGACY_SLOT_MINUTES = 2;
+
+    private final AvailabilityJournal journal;
+    private final ConcurrentHashMap<Integer, Rides> ridesByTaxi = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Creates a schedule backed by a taxi availability file.
+     *
+     * @param filePath Path of the availability file.
+     */
+    public TaxiSchedule(String filePath) {
+        this.journal = new AvailabilityJournal(filePath);
+    }
+
+    /**
+     * Reads the availability file and its journal unless this has already been done.
+     *
+     * @throws FileNotFoundException If the file is not found.
+     */
+    public synchronized void load() throws FileNotFoundException {
+        if (loaded) {
+            return;
+        }
+        HashMap<Integer, TreeMap<LocalDateTime, Integer>> legacySlots = new HashMap<>();
+        journal.replay(dataArray -> {
+            int id = Integer.parseInt(dataArray[0]);
+            int slash = dataArray[1].indexOf('/');
+            if (slash < 0) {
+                legacySlots.computeIfAbsent(id, k -> new TreeMap<>())
+                        .put(LocalDateTime.parse(dataArray[1], FORMATTER), Integer.parseInt(dataArray[2]));
+                return;
+            }
+            LocalDateTime pickup = LocalDateTime.parse(dataArray[1].substring(0, slash), FORMATTER);
+            LocalDateTime arrival = LocalDateTime.parse(dataArray[1].substring(slash + 1), FORMATTER);
+            rides(id).setCount(pickup, arrival, Integer.parseInt(dataArray[2]));
+        });
+        if (legacySlots.isEmpty()) {
+            journal.compactIfNeeded();
+        } else {
+            migrate(legacySlots);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Returns how many cars of a taxi are free at a given time.
+     *
+     * @param id       The taxi ID.
+     * @param dateTime The time to check.
+     * @param capacity Total number of cars of the taxi.
+     * @return The number of free cars.
+     */
+    public int available(int id, LocalDateTime dateTime, int capacity) {
+        ensureLoaded();
+        Rides rides = ridesByTaxi.get(id);
+        if (rides == null) {
+            return capacity;
+        }
+        synchronized (rides) {
+            return capacity - rides.occupiedAt(dateTime);
+        }
+    }
+
+    /**
+     * Returns how many cars of a taxi are free for the whole of a ride, that is the fewest
+     * free cars at any minute from pickup to arrival. This walks the occupancy steps inside
+     * the ride, so it is linear in the bookings that start or end during it; many pickup
+     * times are better checked at once with {@link #minAvailable(int, List, int, int)}.
+     *
+     * @param id       The taxi ID.
+     * @param pickup   The pickup time.
+     * @param arrival  The arrival time, inclusive.
+     * @param capacity Total number of cars of the taxi.
+     * @return The number of cars free for the whole ride.
+     */
+    public int minAvailable(int id, LocalDateTime pickup, LocalDateTime arrival, int capacity) {
+        ensureLoaded();
+        Rides rides = ridesByTaxi.get(id);
+        if (rides == null) {
+            return capacity;
+        }
+        synchronized (rides) {
+            return capacity - rides.maxOccupied(pickup, arrival);
+        }
+    }
+
+    /**
+     * Answers {@link #minAvailable} for many candidate pickup times of the same ride length in one
+     * pass. The windows are visited in pickup order while a monotonic deque of occupancy steps
+     * tracks the maximum of the current window, so every step is touched at most twice however
+     * many candidates overlap it.
+     *
+     * @param id            The taxi ID.
+     * @param pickups       Candidate pickup times, in ascending order.
+     * @param travelMinutes Length of the ride in minutes.
+     * @param capacity      Total number of cars of the taxi.
+     * @return The number of cars free for the whole ride, for each pickup time in order.
+     */
+    public int[] minAvailable(int id, List<LocalDateTime> pickups, int travelMinutes, int capacity) {
+        ensureLoaded();
+        int[] free = new int[pickups.size()];
+        Rides rides = ridesByTaxi.get(id);
+        if (rides == null || pickups.isEmpty()) {
+            Arrays.fill(free, capacity);
+            return free;
+        }
+        synchronized (rides) {
+            if (rides.occupancy.isEmpty()) {
+                Arrays.fill(free, capacity);
+            } else {
+                slidingMinAvailable(rides, pickups, travelMinutes, capacity, free);
+            }
+        }
+        return free;
+    }
+
+    private static void slidingMinAvailable(Rides rides, List<LocalDateTime> pickups, int travelMinutes,
+                                            int capacity, int[] free) {
+        ArrayDeque<Map.Entry<LocalDateTime, Integer>> window = new ArrayDeque<>();
+        Map.Entry<LocalDateTime, Integer> first = rides.occupancy.floorEntry(pickups.get(0));
+        Iterator<Map.Entry<LocalDateTime, Integer>> steps = (first == null
+                ? rides.occupancy
+                : rides.occupancy.tailMap(first.getKey(), true)).entrySet().iterator();
+        Map.Entry<LocalDateTime, Integer> next = steps.hasNext() ? steps.next() : null;
+
+        for (int i = 0; i < free.length; i++) {
+            LocalDateTime pickup = pickups.get(i);
+            LocalDateTime arrival = pickup.plusMinutes(travelMinutes);
+            while (next != null && !next.getKey().isAfter(arrival)) {
+                while (!window.isEmpty() && window.peekLast().getValue() <= next.getValue()) {
+                    window.pollLast();
+                }
+                window.addLast(next);
+                next = steps.hasNext() ? steps.next() : null;
+            }
+            while (!window.isEmpty() && !rides.stepEnd(window.peekFirst().getKey()).isAfter(pickup)) {
+                window.pollFirst();
+            }
+            free[i] = capacity - (window.isEmpty() ? 0 : window.peekFirst().getValue());
+        }
+    }
+
+    /**
+     * Books one car of a taxi for a ride, provided a car is free for the whole ride.
+     *
+     * @param id       The taxi ID.
+     * @param pickup   The pickup time.
+     * @param arrival  The arrival time, inclusive.
+     * @param capacity Total number of cars of the taxi.
+     * @return true if the ride was booked.
+     */
+    public boolean reserve(int id, LocalDateTime pickup, LocalDateTime arrival, int capacity) {
+        ensureLoaded();
+        Rides rides = rides(id);
+        synchronized (rides) {
+            if (rides.maxOccupied(pickup, arrival) >= capacity) {
+                return false;
+            }
+            record(id, rides, pickup, arrival, rides.count(pickup, arrival) + 1);
+        }
+        save();
+        return true;
+    }
+
+    /**
+     * Takes one car of a taxi for a ride, provided a car is free for the whole ride. The held car
+     * counts as occupied but is not written out until the hold is committed.
+     *
+     * @param id       The taxi ID.
+     * @param pickup   The pickup time.
+     * @param arrival  The arrival time, inclusive.
+     * @param capacity Total number of cars of the taxi.
+     * @return The hold, or null if no car is free for the whole ride.
+     */
+    public InventoryHold hold(int id, LocalDateTime pickup, LocalDateTime arrival, int capacity) {
+        ensureLoaded();
+        Rides rides = rides(id);
+        synchronized (rides) {
+            if (rides.maxOccupied(pickup, arrival) >= capacity) {
+                return null;
+            }
+            rides.addHeld(pickup, arrival, 1);
+        }
+        return new RideHold(id, rides, pickup, arrival);
+    }
+
+    /**
+     * Releases one car booked for a ride.
+     *
+     * @param id      The taxi ID.
+     * @param pickup  The pickup time the ride was booked with.
+     * @param arrival The arrival time the ride was booked with.
+     * @return true if a matching ride was found and released.
+     */
+    public boolean release(int id, LocalDateTime pickup, LocalDateTime arrival) {
+        ensureLoaded();
+        Rides rides = ridesByTaxi.get(id);
+        if (rides == null) {
+            return false;
+        }
+        synchronized (rides) {
+            if (rides.count(pickup, arrival) == 0) {
+                // Rides migrated from slot rows end on the last 2-minute slot before arrival.
+                LocalDateTime lastSlot = arrival.minusMinutes(Duration.between(pickup, arrival).toMinutes() % LEGACY_SLOT_MINUTES);
+                if (rides.count(pickup, lastSlot) == 0) {
+                    return false;
+                }
+                arrival = lastSlot;
+            }
+            record(id, rides, pickup, arrival, rides.count(pickup, arrival) - 1);
+        }
+        save();
+        return true;
+    }
+
+    /**
+     * Persists the changes recorded since the last save. With write-behind enabled they are left
+     * to the {@link WriteBehindFlusher}; otherwise they are appended to the journal at once.
+     * Write errors are reported and otherwise ignored.
+     */
+    private void save() {
+        journal.flushLater();
+    }
+
+    /**
+     * Persists the changes recorded since the last save with a single journal append that is
+     * forced to disk before returning.
+     *
+     * @throws IOException If the changes cannot be written; they stay queued in that case.
+     */
+    private void commit() throws IOException {
+        journal.flush(true);
+    }
+
+    /**
+     * Gives back the cars taken by bookings whose reservation was never written. Only rides whose
+     * latest row in the file was written by such a booking are changed, each losing one booking
+     * with a new row forced to disk; rides changed since the file was loaded are left alone.
+     *
+     * @param reserved Tells whether a reservation ID was written.
+     * @return The number of rides rolled back.
+     * @throws IOException If the restored rides cannot be written.
+     */
+    public int rollBackUnreserved(IntPredicate reserved) throws IOException {
+        ensureLoaded();
+        int rolledBack = 0;
+        for (Map.Entry<String, Integer> slot : journal.takeBookedSlots().entrySet()) {
+            if (reserved.test(slot.getValue())) {
+                continue;
+            }
+            String[] fields = slot.getKey().split(",");
+            int id = Integer.parseInt(fields[0]);
+            int slash = fields[1].indexOf('/');
+            LocalDateTime pickup = LocalDateTime.parse(fields[1].substring(0, slash), FORMATTER);
+            LocalDateTime arrival = LocalDateTime.parse(fields[1].substring(slash + 1), FORMATTER);
+            Rides rides = rides(id);
+            synchronized (rides) {
+                if (rides.count(pickup, arrival) == 0) {
+                    continue;
+                }
+                record(id, rides, pickup, arrival, rides.count(pickup, arrival) - 1);
+            }
+            rolledBack++;
+        }
+        if (rolledBack > 0) {
+            commit();
+        }
+        return rolledBack;
+    }
+
+    /**
+     * Writes any queued changes and rewrites the availability file without the rows that no
+     * longer matter: rides that arrived before the horizon, and intervals no longer booked at all.
+     * The schedule in memory is unchanged.
+     *
+     * @param horizon Rides arriving before this time are dropped.
+     * @return The rows and bytes reclaimed, or null if the file could not be compacted.
+     */
+    public CompactionReport compact(LocalDateTime horizon) {
+        ensureLoaded();
+        return journal.compact(fields -> Integer.parseInt(fields[2]) > 0
+                && !LocalDateTime.parse(fields[1].substring(fields[1].indexOf('/') + 1), FORMATTER).isBefore(horizon));
+    }
+
+    /**
+     * Sets how often an interval is booked and queues its journal row. Must be called holding
+     * the taxi's lock, which keeps the queued rows of a taxi in the same order as its updates.
+     */
+    private void record(int id, Rides rides, LocalDateTime pickup, LocalDateTime arrival, int count) {
+        rides.setCount(pickup, arrival, count);
+        journal.enqueue(row(id, pickup, arrival, count));
+    }
+
+    /**
+     * Like {@link #record(int, Rides, LocalDateTime, LocalDateTime, int)}, tagging the row with the
+     * booking that made the change.
+     */
+    private void record(int id, Rides rides, LocalDateTime pickup, LocalDateTime arrival, int count, int booking) {
+        rides.setCount(pickup, arrival, count);
+        journal.enqueue(row(id, pickup, arrival, count) + "," + booking);
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            try {
+                load();
+            } catch (FileNotFoundException e) {
+                e.printStackTrace();
+                loaded = true;
+            }
+        }
+    }
+
+    private Rides rides(int id) {
+        return ridesByTaxi.computeIfAbsent(id, k -> new Rides());
+    }
+
+    /**
+     * Turns slot rows into rides. Each run of consecutive 2-minute slots with the same remaining
+     * capacity becomes one interval booked (capacity - remaining) times, and the file is rewritten
+     * with interval rows only.
+     */
+    private void migrate(HashMap<Integer, TreeMap<LocalDateTime, Integer>> legacySlots) {
+        for (Map.Entry<Integer, TreeMap<LocalDateTime, Integer>> taxiSlots : legacySlots.entrySet()) {
+            int id = taxiSlots.getKey();
+            Taxi taxi = Taxi.retrieveTaxi(id);
+            if (taxi == null) {
+                continue;
+            }
+            LocalDateTime runStart = null;
+            LocalDateTime runEnd = null;
+            int runRemaining = 0;
+            for (Map.Entry<LocalDateTime, Integer> slot : taxiSlots.getValue().entrySet()) {
+                boolean continues = runStart != null
+                        && slot.getKey().equals(runEnd.plusMinutes(LEGACY_SLOT_MINUTES))
+                        && slot.getValue() == runRemaining;
+                if (continues) {
+                    runEnd = slot.getKey();
+                    continue;
+                }
+                addLegacyRun(id, runStart, runEnd, taxi.getAvailableCount() - runRemaining);
+                runStart = slot.getKey();
+                runEnd = slot.getKey();
+                runRemaining = slot.getValue();
+            }
+            addLegacyRun(id, runStart, runEnd, taxi.getAvailableCount() - runRemaining);
+        }
+
+        ArrayList<String> rows = new ArrayList<>();
+        for (Map.Entry<Integer, Rides> taxiRides : ridesByTaxi.entrySet()) {
+            for (Map.Entry<String, Integer> ride : taxiRides.getValue().counts.entrySet()) {
+                if (ride.getValue() > 0) {
+                    rows.add(taxiRides.getKey() + "," + ride.getKey() + "," + ride.getValue());
+                }
+            }
+        }
+        rows.sort(null);
+        journal.rewrite(rows);
+    }
+
+    private void addLegacyRun(int id, LocalDateTime start, LocalDateTime end, int booked) {
+        if (start == null || booked <= 0) {
+            return;
+        }
+        Rides rides = rides(id);
+        rides.setCount(start, end, rides.count(start, end) + booked);
+    }
+
+    private static String key(LocalDateTime pickup, LocalDateTime arrival) {
+        return pickup.format(FORMATTER) + "/" + arrival.format(FORMATTER);
+    }
+
+    private static String row(int id, LocalDateTime pickup, LocalDateTime arrival, int count) {
+        return id + "," + key(pickup, arrival) + "," + count;
+    }
+
+    /**
+     * A car held for one ride. Committing turns it into a booked ride and writes it out;
+     * releasing gives it back, persisting the change only if it had already been committed.
+     */
+    private class RideHold implements InventoryHold {
+        private static final int HELD = 0;
+        private static final int COMMITTED = 1;
+        private static final int RELEASED = 2;
+
+        private final int id;
+        private final Rides rides;
+        private final LocalDateTime pickup;
+        private final LocalDateTime arrival;
+        private int state = HELD;
+
+        RideHold(int id, Rides rides, LocalDateTime pickup, LocalDateTime arrival) {
+            this.id = id;
+            this.rides = rides;
+            this.pickup = pickup;
+            this.arrival = arrival;
+        }
+
+        @Override
+        public void commit(int booking) throws IOException {
+            synchronized (rides) {
+                if (state != HELD) {
+                    throw new IllegalStateException("Hold is no longer active");
+                }
+                rides.addHeld(pickup, arrival, -1);
+                record(id, rides, pickup, arrival, rides.count(pickup, arrival) + 1, booking);
+                state = COMMITTED;
+            }
+            TaxiSchedule.this.commit();
+        }
+
+        @Override
+        public void release() {
+            boolean wasCommitted;
+            synchronized (rides) {
+                if (state == RELEASED) {
+                    return;
+                }
+                wasCommitted = state == COMMITTED;
+                if (!wasCommitted) {
+                    rides.addHeld(pickup, arrival, -1);
+                }
+                state = RELEASED;
+            }
+            if (wasCommitted) {
+                TaxiSchedule.this.release(id, pickup, arrival);
+            }
+        }
+    }
+
+    /**
+     * The rides of one taxi: how many times each interval is booked, how many cars are held for
+     * each interval, and the resulting occupancy. The object doubles as the taxi's lock.
+     */
+    private static class Rides {
+        private final HashMap<String, Integer> counts = new HashMap<>();
+        private final HashMap<String, Integer> held = new HashMap<>();
+        private final TreeMap<LocalDateTime, Integer> occupancy = new TreeMap<>();
+
+        int count(LocalDateTime pickup, LocalDateTime arrival) {
+            return counts.getOrDefault(key(pickup, arrival), 0);
+        }
+
+        void setCount(LocalDateTime pickup, LocalDateTime arrival, int count) {
+            int previous = counts.getOrDefault(key(pickup, arrival), 0);
+            if (count == 0) {
+                counts.remove(key(pickup, arrival));
+            } else {
+                counts.put(key(pickup, arrival), count);
+            }
+            if (count != previous) {
+                addOccupancy(pickup, arrival.plusMinutes(1), count - previous);
+            }
+        }
+
+        void addHeld(LocalDateTime pickup, LocalDateTime arrival, int delta) {
+            held.merge(key(pickup, arrival), delta, (a, b) -> a + b == 0 ? null : a + b);
+            addOccupancy(pickup, arrival.plusMinutes(1), delta);
+        }
+
+        int occupiedAt(LocalDateTime dateTime) {
+            Map.Entry<LocalDateTime, Integer> step = occupancy.floorEntry(dateTime);
+            return step == null ? 0 : step.getValue();
+        }
+
+        /**
+         * Returns the time at which the step starting at the given time ends, or LocalDateTime.MAX for the last step.
+         */
+        LocalDateTime stepEnd(LocalDateTime stepStart) {
+            LocalDateTime end = occupancy.higherKey(stepStart);
+            return end == null ? LocalDateTime.MAX : end;
+        }
+
+        /**
+         * Returns the highest number of cars in use at any minute from pickup to arrival, inclusive,
+         * by visiting every step in between: O(log n + k) for k steps within the ride.
+         */
+        int maxOccupied(LocalDateTime pickup, LocalDateTime arrival) {
+            int max = occupiedAt(pickup);
+            for (int occupied : occupancy.subMap(pickup, false, arrival, true).values()) {
+                max = Math.max(max, occupied);
+            }
+            return max;
+        }
+
+        private void addOccupancy(LocalDateTime from, LocalDateTime until, int delta) {
+            occupancy.putIfAbsent(from, occupiedAt(from));
+            occupancy.putIfAbsent(until, occupiedAt(until));
+            NavigableMap<LocalDateTime, Integer> covered = occupancy.subMap(from, true, until, false);
+            covered.replaceAll((time, occupied) -> occupied + delta);
+            mergeStep(until);
+            mergeStep(from);
+        }
+
+        /**
+         * Removes a step that no longer changes the occupancy, keeping the map minimal.
+         */
+        private void mergeStep(LocalDateTime time) {
+            Integer value = occupancy.get(time);
+            if (value == null) {
+                return;
+            }
+            Map.Entry<LocalDateTime, Integer> previous = occupancy.lowerEntry(time);
+            int before = previous == null ? 0 : previous.getValue();
+            if (before == value) {
+                occupancy.remove(time);
+            }
+        }
+    }
+}
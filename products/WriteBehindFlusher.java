@@ -0,0 +1,137 @@
+package products;
+
+import constants.Constants;
+
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Writes queued availability changes in the background, so that bookings and cancellations
+ * return as soon as memory is updated instead of appending to a journal each time.
+ * A single daemon thread flushes every {@link AvailabilityJournal} once per
+ * {@link Constants#AVAILABILITY_FLUSH_INTERVAL_MILLIS}, or as soon as one of them has
+ * {@link Constants#AVAILABILITY_FLUSH_MAX_ROWS} rows queued. Repeated changes to the same
+ * product and day in between are coalesced into one row.
+ * <p>
+ * Durability: a change made through book() or cancelBook() is visible to every lookup at once,
+ * but reaches the journal only with the next background flush, and is not forced to the storage
+ * device by it. If the process is killed, changes from up to one flush interval are lost, and
+ * if the machine fails, so may those written since the last forced flush. Committing a booking
+ * through an {@link InventoryHold} forces its journal to disk before the reservation is
+ * recorded, and cancelling a reservation calls {@link #flushAll()}, so reservations and
+ * the availability they took or returned are always persisted together. On a normal exit,
+ * including System.exit, a shutdown hook flushes and forces everything still queued.
+ * With write-behind disabled, every save appends its rows before returning, as before.
+ * <p>
+ * Write-behind is off unless {@link Constants#AVAILABILITY_WRITE_BEHIND} is set or
+ * {@link #setEnabled(boolean)} turns it on, since it trades the durability described above for
+ * faster saves.
+ */
+public class WriteBehindFlusher {
+    private static final CopyOnWriteArrayList<AvailabilityJournal> journals = new CopyOnWriteArrayList<>();
+    private static final Object wakeUp = new Object();
+    private static volatile boolean enabled = Constants.AVAILABILITY_WRITE_BEHIND;
+    private static boolean flushRequested;
+    private static Thread flusher;
+
+    /**
+     * Adds a journal to those flushed in the background and on exit.
+     *
+     * @param journal The journal.
+     */
+    static void register(AvailabilityJournal journal) {
+        journals.add(journal);
+    }
+
+    /**
+     * @return Whether saves are left to the background flusher.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns write-behind on or off. When it is turned off, everything queued is flushed first.
+     *
+     * @param writeBehind Whether saves should be left to the background flusher.
+     * @throws IOException If queued changes cannot be written while turning write-behind off.
+     */
+    public static void setEnabled(boolean writeBehind) throws IOException {
+        enabled = writeBehind;
+        if (!writeBehind) {
+            flushAll();
+        }
+    }
+
+    /**
+     * Writes every queued change of every journal and forces it to disk before returning.
+     * This is the barrier used when a reservation is committed or cancelled.
+     *
+     * @throws IOException If a journal cannot be written; its changes stay queued.
+     */
+    public static void flushAll() throws IOException {
+        IOException failure = null;
+        for (AvailabilityJournal journal : journals) {
+            try {
+                journal.flush(true);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Starts the background flusher and its shutdown hook unless they are already running.
+     */
+    static synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = new Thread(WriteBehindFlusher::run, "availability-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                flushAll();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "availability-flush-on-exit"));
+    }
+
+    /**
+     * Wakes the background flusher before its interval has passed.
+     */
+    static void requestFlush() {
+        start();
+        synchronized (wakeUp) {
+            flushRequested = true;
+            wakeUp.notifyAll();
+        }
+    }
+
+    private static void run() {
+        while (true) {
+            synchronized (wakeUp) {
+                try {
+                    if (!flushRequested) {
+                        wakeUp.wait(Constants.AVAILABILITY_FLUSH_INTERVAL_MILLIS);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                flushRequested = false;
+            }
+            for (AvailabilityJournal journal : journals) {
+                try {
+                    journal.flush(false);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
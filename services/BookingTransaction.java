@@ -0,0 +1,123 @@
+package services;
+
+import products.Flight;
+import products.Hotel;
+import products.InventoryHold;
+import products.Taxi;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.function.IntPredicate;
+
+/**
+ * Books the hotel nights, flight seat and taxi ride of a package as one unit.
+ * All three are first held in memory, which also checks that each has capacity left; if any
+ * of them is unavailable the holds taken so far are released and nothing is written. Once
+ * everything is held, {@link #commit(int)} writes each availability journal once and forces it
+ * to disk, and {@link #rollback()} undoes the holds whether or not they were committed.
+ * <p>
+ * The reservation is written after the journals, and it is what makes the booking permanent.
+ * The committed rows are tagged with the reservation ID, and before the first booking of a run
+ * {@link #rollBackUnreserved()} gives back the capacity of any tagged rows whose reservation is
+ * missing, so a crash between the two cannot leave capacity taken by nobody.
+ */
+public class BookingTransaction {
+    private static volatile boolean recovered;
+    private final ArrayList<InventoryHold> holds = new ArrayList<>();
+
+    private BookingTransaction() {
+    }
+
+    /**
+     * Holds the capacity needed for a package.
+     *
+     * @param pck        The package to book.
+     * @param hotelStart The first night of the hotel stay.
+     * @param hotelEnd   The last night of the hotel stay, inclusive.
+     * @param flightDate The date of the flight.
+     * @param taxiTime   The taxi pickup time.
+     * @return A transaction holding the hotel, flight and taxi capacity.
+     * @throws IllegalStateException If any part of the package has no capacity left; nothing is held then.
+     */
+    public static BookingTransaction hold(Package pck, LocalDate hotelStart, LocalDate hotelEnd,
+                                          LocalDate flightDate, LocalDateTime taxiTime) {
+        rollBackUnreserved();
+        BookingTransaction transaction = new BookingTransaction();
+        Hotel hotel = pck.getHotel();
+        transaction.add(hotel.holdRange(hotelStart, hotelEnd),
+                "No rooms left at " + hotel + " between " + hotelStart + " and " + hotelEnd);
+
+        Flight flight = pck.getFlight();
+        transaction.add(flight.hold(flightDate), "No seats left on flight " + flight + " on " + flightDate);
+
+        Taxi taxi = pck.getTaxi();
+        LocalDateTime taxiArrivalTime = taxiTime.plusMinutes(Taxi.travelMinutes(hotel));
+        transaction.add(taxi.hold(taxiTime, taxiArrivalTime), "No " + taxi + " taxis left at " + taxiTime);
+        return transaction;
+    }
+
+    /**
+     * Persists every held change, forcing each availability journal to disk once.
+     * If a write fails, all holds are rolled back before the exception is rethrown.
+     *
+     * @param reservationId The ID the booking's reservation is written with once this returns.
+     * @throws IOException If a change cannot be written.
+     */
+    public void commit(int reservationId) throws IOException {
+        try {
+            for (InventoryHold hold : holds) {
+                hold.commit(reservationId);
+            }
+        } catch (IOException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives back all held capacity, most recent hold first.
+     */
+    public void rollback() {
+        for (int i = holds.size() - 1; i >= 0; i--) {
+            holds.get(i).release();
+        }
+        holds.clear();
+    }
+
+    /**
+     * Gives back the hotel, flight and taxi capacity committed for reservations that were never
+     * written, as left behind when the application stops between the two. Only the first call
+     * does anything, so it is made before the first booking and may be made earlier at startup.
+     */
+    public static void rollBackUnreserved() {
+        if (recovered) {
+            return;
+        }
+        synchronized (BookingTransaction.class) {
+            if (recovered) {
+                return;
+            }
+            IntPredicate reserved = id -> ReservationsManagers.getReservation(id) != null;
+            try {
+                int rolledBack = Hotel.rollBackUnreserved(reserved) + Flight.rollBackUnreserved(reserved)
+                        + Taxi.rollBackUnreserved(reserved);
+                if (rolledBack > 0) {
+                    System.out.println("Rolled back " + rolledBack + " availability rows of unfinished bookings");
+                }
+                recovered = true;
+            } catch (IOException e) {
+                System.out.println("Error rolling back unfinished bookings: " + e.getMessage());
+            }
+        }
+    }
+
+    private void add(InventoryHold hold, String unavailableMessage) {
+        if (hold == null) {
+            rollback();
+            throw new IllegalStateException(unavailableMessage);
+        }
+        holds.add(hold);
+    }
+}
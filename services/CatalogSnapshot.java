@@ -0,0 +1,335 @@
+package services;
+
+import products.Flight;
+import products.Hotel;
+import products.Taxi;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Stores parsed catalogs in a compact binary snapshot next to their source CSV files.
+ * A snapshot records the size and modification time of the CSV it was built from and is only used
+ * while both still match, so checking it costs two file attribute reads rather than a pass over
+ * the CSV. A snapshot is not written if the CSV changed while it was being parsed. An edit that
+ * keeps the size and lands within the same millisecond would go unnoticed, which the datasets,
+ * replaced as whole files, do not do. Repeated strings such as city names are written
+ * once in a string table, and IDs are not stored since they are assigned sequentially from the
+ * catalog's first ID.
+ */
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x4B55434B; // "KUCK"
+    private static final int VERSION = 2;
+    private static final byte HOTELS = 1;
+    private static final byte FLIGHTS = 2;
+    private static final byte TAXIS = 3;
+
+    /**
+     * Loads the hotels catalog from its snapshot if the snapshot is still valid for the CSV.
+     *
+     * @param csvPath Path of the hotels CSV file.
+     * @return The hotels by ID, or null if there is no valid snapshot.
+     */
+    public static HashMap<Integer, Hotel> readHotels(String csvPath) {
+        DataInputStream in = open(csvPath, HOTELS);
+        if (in == null) {
+            return null;
+        }
+        try {
+            int firstId = in.readInt();
+            int count = in.readInt();
+            String[] strings = readStrings(in);
+            HashMap<Integer, Hotel> hotels = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                int id = firstId + i;
+                hotels.put(id, new Hotel(strings[in.readInt()], strings[in.readInt()], strings[in.readInt()],
+                        in.readInt(), in.readDouble(), in.readDouble(), id));
+            }
+            return hotels;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring unreadable catalog snapshot for " + csvPath + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the hotels catalog.
+     *
+     * @param csvPath     Path of the hotels CSV file the catalog was parsed from.
+     * @param fingerprint Fingerprint of the CSV taken before it was parsed. Nothing is written
+     *                    if the CSV has changed since.
+     * @param hotels      The parsed hotels by ID.
+     * @param firstId     ID of the first hotel.
+     */
+    public static void writeHotels(String csvPath, long[] fingerprint, HashMap<Integer, Hotel> hotels, int firstId) {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(rows)) {
+            for (int id = firstId; id < firstId + hotels.size(); id++) {
+                Hotel hotel = hotels.get(id);
+                out.writeInt(strings.indexOf(hotel.getName()));
+                out.writeInt(strings.indexOf(hotel.getCity()));
+                out.writeInt(strings.indexOf(hotel.getRoomType()));
+                out.writeInt(hotel.getAvailableCount());
+                out.writeDouble(hotel.getPricePerNight());
+                out.writeDouble(hotel.getDistanceToAirport());
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing catalog snapshot: " + e.getMessage());
+            return;
+        }
+        write(csvPath, HOTELS, fingerprint, firstId, hotels.size(), strings, rows);
+    }
+
+    /**
+     * Loads the flights catalog from its snapshot if the snapshot is still valid for the CSV.
+     *
+     * @param csvPath Path of the flights CSV file.
+     * @return The flights by ID, or null if there is no valid snapshot.
+     */
+    public static HashMap<Integer, Flight> readFlights(String csvPath) {
+        DataInputStream in = open(csvPath, FLIGHTS);
+        if (in == null) {
+            return null;
+        }
+        try {
+            int firstId = in.readInt();
+            int count = in.readInt();
+            String[] strings = readStrings(in);
+            HashMap<Integer, Flight> flights = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                int id = firstId + i;
+                boolean stopover = in.readBoolean();
+                String airline = strings[in.readInt()];
+                String departureCity = strings[in.readInt()];
+                String ticketClass = strings[in.readInt()];
+                double price = in.readDouble();
+                int availableSeats = in.readInt();
+                Flight flight;
+                if (stopover) {
+                    flight = new Flight(airline, departureCity, strings[in.readInt()], strings[in.readInt()],
+                            strings[in.readInt()], strings[in.readInt()], strings[in.readInt()], strings[in.readInt()],
+                            availableSeats, ticketClass, price, id);
+                } else {
+                    flight = new Flight(airline, departureCity, strings[in.readInt()], availableSeats,
+                            strings[in.readInt()], strings[in.readInt()], ticketClass, price, id);
+                }
+                flights.put(id, flight);
+            }
+            return flights;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring unreadable catalog snapshot for " + csvPath + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the flights catalog, keeping both legs of stopover flights.
+     *
+     * @param csvPath     Path of the flights CSV file the catalog was parsed from.
+     * @param fingerprint Fingerprint of the CSV taken before it was parsed. Nothing is written
+     *                    if the CSV has changed since.
+     * @param flights     The parsed flights by ID.
+     * @param firstId     ID of the first flight.
+     */
+    public static void writeFlights(String csvPath, long[] fingerprint, HashMap<Integer, Flight> flights, int firstId) {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(rows)) {
+            for (int id = firstId; id < firstId + flights.size(); id++) {
+                Flight flight = flights.get(id);
+                boolean stopover = flight.getStopoverCity() != null;
+                out.writeBoolean(stopover);
+                out.writeInt(strings.indexOf(flight.getAirline()));
+                out.writeInt(strings.indexOf(flight.getDepartureCity()));
+                out.writeInt(strings.indexOf(flight.getTicketClass()));
+                out.writeDouble(flight.getPrice());
+                out.writeInt(flight.getAvailableCount());
+                if (stopover) {
+                    out.writeInt(strings.indexOf(flight.getStopoverCity()));
+                    out.writeInt(strings.indexOf(flight.getFinalArrivalCity()));
+                    out.writeInt(strings.indexOf(formatTime(flight.getLeg1DepartureTime())));
+                    out.writeInt(strings.indexOf(formatTime(flight.getLeg1ArrivalTime())));
+                    out.writeInt(strings.indexOf(formatTime(flight.getLeg2DepartureTime())));
+                    out.writeInt(strings.indexOf(formatTime(flight.getLeg2ArrivalTime())));
+                } else {
+                    out.writeInt(strings.indexOf(flight.getArrivalCity()));
+                    out.writeInt(strings.indexOf(formatTime(flight.getDepartureTime())));
+                    out.writeInt(strings.indexOf(formatTime(flight.getArrivalTime())));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing catalog snapshot: " + e.getMessage());
+            return;
+        }
+        write(csvPath, FLIGHTS, fingerprint, firstId, flights.size(), strings, rows);
+    }
+
+    /**
+     * Loads the taxis catalog from its snapshot if the snapshot is still valid for the CSV.
+     *
+     * @param csvPath Path of the taxis CSV file.
+     * @return The taxis by ID, or null if there is no valid snapshot.
+     */
+    public static HashMap<Integer, Taxi> readTaxis(String csvPath) {
+        DataInputStream in = open(csvPath, TAXIS);
+        if (in == null) {
+            return null;
+        }
+        try {
+            int firstId = in.readInt();
+            int count = in.readInt();
+            String[] strings = readStrings(in);
+            HashMap<Integer, Taxi> taxis = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                int id = firstId + i;
+                taxis.put(id, new Taxi(strings[in.readInt()], strings[in.readInt()],
+                        in.readInt(), in.readDouble(), in.readDouble(), id));
+            }
+            return taxis;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring unreadable catalog snapshot for " + csvPath + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the taxis catalog.
+     *
+     * @param csvPath     Path of the taxis CSV file the catalog was parsed from.
+     * @param fingerprint Fingerprint of the CSV taken before it was parsed. Nothing is written
+     *                    if the CSV has changed since.
+     * @param taxis       The parsed taxis by ID.
+     * @param firstId     ID of the first taxi.
+     */
+    public static void writeTaxis(String csvPath, long[] fingerprint, HashMap<Integer, Taxi> taxis, int firstId) {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(rows)) {
+            for (int id = firstId; id < firstId + taxis.size(); id++) {
+                Taxi taxi = taxis.get(id);
+                out.writeInt(strings.indexOf(taxi.getCity()));
+                out.writeInt(strings.indexOf(taxi.getTaxiType()));
+                out.writeInt(taxi.getAvailableCount());
+                out.writeDouble(taxi.getBaseFare());
+                out.writeDouble(taxi.getPerKmRate());
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing catalog snapshot: " + e.getMessage());
+            return;
+        }
+        write(csvPath, TAXIS, fingerprint, firstId, taxis.size(), strings, rows);
+    }
+
+    /**
+     * Reads the size and modification time of a CSV file.
+     *
+     * @param csvPath Path of the CSV file.
+     * @return The fingerprint as {size, mtime}, or null if the file cannot be read.
+     */
+    public static long[] fingerprint(String csvPath) {
+        Path path = Paths.get(csvPath);
+        try {
+            return new long[]{Files.size(path), Files.getLastModifiedTime(path).toMillis()};
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the path of the snapshot belonging to a CSV file.
+     *
+     * @param csvPath Path of the CSV file.
+     * @return Path of its snapshot.
+     */
+    public static Path snapshotPath(String csvPath) {
+        return Paths.get(csvPath.replaceFirst("\\.csv$", "") + ".snapshot");
+    }
+
+    private static DataInputStream open(String csvPath, byte kind) {
+        Path snapshot = snapshotPath(csvPath);
+        if (!Files.exists(snapshot)) {
+            return null;
+        }
+        try {
+            // One sequential read of the whole snapshot, then decode from memory
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(snapshot)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readByte() != kind) {
+                return null;
+            }
+            long[] recorded = {in.readLong(), in.readLong()};
+            if (!Arrays.equals(recorded, fingerprint(csvPath))) {
+                return null;
+            }
+            return in;
+        } catch (IOException e) {
+            System.out.println("Ignoring unreadable catalog snapshot for " + csvPath + ": " + e);
+            return null;
+        }
+    }
+
+    private static void write(String csvPath, byte kind, long[] fingerprint, int firstId, int count,
+                              StringTable strings, ByteArrayOutputStream rows) {
+        if (fingerprint == null || !Arrays.equals(fingerprint, fingerprint(csvPath))) {
+            return;
+        }
+        Path snapshot = snapshotPath(csvPath);
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(kind);
+            out.writeLong(fingerprint[0]);
+            out.writeLong(fingerprint[1]);
+            out.writeInt(firstId);
+            out.writeInt(count);
+            out.writeInt(strings.values.size());
+            for (String value : strings.values) {
+                out.writeUTF(value);
+            }
+            rows.writeTo(out);
+        } catch (IOException e) {
+            System.out.println("Error writing catalog snapshot: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error writing catalog snapshot: " + e.getMessage());
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+        return strings;
+    }
+
+    private static String formatTime(java.time.LocalTime time) {
+        return time.getHour() + ":" + (time.getMinute() < 10 ? "0" : "") + time.getMinute();
+    }
+
+    /**
+     * Assigns each distinct string an index in order of first appearance.
+     */
+    private static class StringTable {
+        private final HashMap<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                indexes.put(value, index);
+                values.add(value);
+            }
+            return index;
+        }
+    }
+}
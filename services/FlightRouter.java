@@ -0,0 +1,261 @@
+package services;
+
+import constants.Constants;
+import products.Flight;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Searches for itineraries that chain separate flights through other cities, where
+ * {@link Flight#selectByCity(String, String)} only finds flights between two given cities.
+ * <p>
+ * Flights run every day, so the search works on the departures of each city ordered by time
+ * ({@link TravelParser#getDeparturesFrom(String)}) and places each leg on a date: a flight that
+ * crosses midnight lands the day after it leaves, and a connection must leave at least
+ * {@link Constants#MIN_CONNECTION_MINUTES} and at most {@link Constants#MAX_LAYOVER_HOURS}
+ * after the previous landing. Only legs with a seat left on their date are taken, itineraries
+ * have at most {@link Constants#MAX_ITINERARY_LEGS} legs and never visit a city twice.
+ * Before searching, the fewest legs from each city to the destination are counted backwards over
+ * {@link TravelParser#getArrivalsAt(String)}, ignoring times, so flights into cities from which
+ * the destination cannot be reached within the remaining legs are never considered.
+ * <p>
+ * Partial itineraries are expanded cheapest first, as in Dijkstra's algorithm, with several
+ * labels allowed per city. A partial itinerary is dropped when a city has already been reached
+ * n times in a way that can take every connection it can: landing at the same time, since
+ * landing earlier also closes the layover window earlier, with no more legs and without having
+ * passed through a city it has not. Those were expanded first, so they cost no more.
+ */
+public class FlightRouter {
+
+    /**
+     * What makes one itinerary better than another.
+     */
+    public enum Criterion {
+        PRICE,
+        DURATION
+    }
+
+    private FlightRouter() {
+    }
+
+    /**
+     * Finds the best itineraries between two cities leaving on a date.
+     *
+     * @param departureCity The city to leave from.
+     * @param arrivalCity   The city to arrive at.
+     * @param date          The date the first flight leaves.
+     * @param n             Number of itineraries wanted.
+     * @param criterion     Whether to rank by total price or by time from departure to arrival.
+     * @return Up to n itineraries, best first.
+     */
+    public static ArrayList<Itinerary> search(String departureCity, String arrivalCity, LocalDate date,
+                                              int n, Criterion criterion) {
+        ArrayList<Itinerary> result = new ArrayList<>();
+        String origin = cityKey(departureCity);
+        String destination = cityKey(arrivalCity);
+        if (n <= 0 || origin.equals(destination)) {
+            return result;
+        }
+
+        HashMap<String, Integer> legsToGo = legsToDestination(arrivalCity);
+        PriorityQueue<Label> queue = new PriorityQueue<>();
+        for (Flight flight : TravelParser.getDeparturesFrom(departureCity)) {
+            if (canFinish(flight, 1, legsToGo) && flight.getAvailabilityForDate(date) > 0) {
+                LocalDateTime start = LocalDateTime.of(date, flight.getDepartureTime());
+                queue.add(new Label(null, flight, date, start, criterion));
+            }
+        }
+
+        HashMap<String, ArrayList<Label>> settled = new HashMap<>();
+        while (!queue.isEmpty() && result.size() < n) {
+            Label label = queue.poll();
+            if (label.city.equals(destination)) {
+                result.add(label.toItinerary());
+                continue;
+            }
+            ArrayList<Label> reached = settled.computeIfAbsent(label.city, k -> new ArrayList<>());
+            if (isDominated(label, reached, n)) {
+                continue;
+            }
+            reached.add(label);
+            if (label.legs < Constants.MAX_ITINERARY_LEGS) {
+                addConnections(label, origin, criterion, legsToGo, queue);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the fewest legs from each city to the destination, up to the most an itinerary may have.
+     *
+     * @return The legs needed by city key; cities missing from it cannot reach the destination.
+     */
+    private static HashMap<String, Integer> legsToDestination(String arrivalCity) {
+        HashMap<String, Integer> legsToGo = new HashMap<>();
+        ArrayList<String> frontier = new ArrayList<>();
+        legsToGo.put(cityKey(arrivalCity), 0);
+        frontier.add(arrivalCity);
+        for (int legs = 1; legs <= Constants.MAX_ITINERARY_LEGS && !frontier.isEmpty(); legs++) {
+            ArrayList<String> next = new ArrayList<>();
+            for (String city : frontier) {
+                for (Flight flight : TravelParser.getArrivalsAt(city)) {
+                    if (legsToGo.putIfAbsent(cityKey(flight.getDepartureCity()), legs) == null) {
+                        next.add(flight.getDepartureCity());
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return legsToGo;
+    }
+
+    /**
+     * @return Whether an itinerary whose leg number legs is this flight can still reach the destination.
+     */
+    private static boolean canFinish(Flight flight, int legs, HashMap<String, Integer> legsToGo) {
+        Integer remaining = legsToGo.get(cityKey(flight.getArrivalCity()));
+        return remaining != null && legs + remaining <= Constants.MAX_ITINERARY_LEGS;
+    }
+
+    /**
+     * @return Whether n labels already expanded at the label's city can be continued by every
+     * connection the label can, so nothing that follows it could make the best n.
+     */
+    private static boolean isDominated(Label label, ArrayList<Label> reached, int n) {
+        int better = 0;
+        for (Label other : reached) {
+            if (other.arrival.equals(label.arrival) && other.legs <= label.legs && label.visitsAll(other)) {
+                better++;
+                if (better >= n) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queues every flight that can be caught after a partial itinerary lands.
+     */
+    private static void addConnections(Label label, String origin, Criterion criterion,
+                                       HashMap<String, Integer> legsToGo, PriorityQueue<Label> queue) {
+        List<Flight> departures = TravelParser.getDeparturesFrom(label.flight.getArrivalCity());
+        if (departures.isEmpty()) {
+            return;
+        }
+        LocalDateTime earliest = label.arrival.plusMinutes(Constants.MIN_CONNECTION_MINUTES);
+        LocalDateTime latest = label.arrival.plusHours(Constants.MAX_LAYOVER_HOURS);
+        for (LocalDate day = earliest.toLocalDate(); !day.isAfter(latest.toLocalDate()); day = day.plusDays(1)) {
+            int from = day.equals(earliest.toLocalDate()) ? firstDepartingAt(departures, earliest.toLocalTime()) : 0;
+            for (int i = from; i < departures.size(); i++) {
+                Flight flight = departures.get(i);
+                if (LocalDateTime.of(day, flight.getDepartureTime()).isAfter(latest)) {
+                    break;
+                }
+                String next = cityKey(flight.getArrivalCity());
+                if (next.equals(origin) || !canFinish(flight, label.legs + 1, legsToGo) || label.visits(next)
+                        || flight.getAvailabilityForDate(day) <= 0) {
+                    continue;
+                }
+                queue.add(new Label(label, flight, day, label.start, criterion));
+            }
+        }
+    }
+
+    /**
+     * @return The index of the first flight leaving at or after the given time.
+     */
+    private static int firstDepartingAt(List<Flight> departures, LocalTime time) {
+        int low = 0;
+        int high = departures.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departures.get(mid).getDepartureTime().isBefore(time)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String cityKey(String city) {
+        return city.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A partial itinerary ending with a flight, linked to the one it extends.
+     */
+    private static final class Label implements Comparable<Label> {
+        private final Label previous;
+        private final Flight flight;
+        private final LocalDate date;
+        private final String city;
+        private final LocalDateTime start;
+        private final LocalDateTime arrival;
+        private final double price;
+        private final int legs;
+        private final double cost;
+
+        private Label(Label previous, Flight flight, LocalDate date, LocalDateTime start, Criterion criterion) {
+            this.previous = previous;
+            this.flight = flight;
+            this.date = date;
+            this.city = cityKey(flight.getArrivalCity());
+            this.start = start;
+            this.arrival = Itinerary.arrivalOf(flight, date);
+            this.price = (previous == null ? 0 : previous.price) + flight.getPrice();
+            this.legs = (previous == null ? 0 : previous.legs) + 1;
+            this.cost = criterion == Criterion.PRICE ? price : Duration.between(start, arrival).toMinutes();
+        }
+
+        private boolean visits(String cityKey) {
+            for (Label label = this; label != null; label = label.previous) {
+                if (label.city.equals(cityKey)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean visitsAll(Label other) {
+            for (Label label = other; label != null; label = label.previous) {
+                if (!visits(label.city)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Itinerary toItinerary() {
+            ArrayList<Flight> flights = new ArrayList<>();
+            ArrayList<LocalDate> dates = new ArrayList<>();
+            for (Label label = this; label != null; label = label.previous) {
+                flights.add(label.flight);
+                dates.add(label.date);
+            }
+            Collections.reverse(flights);
+            Collections.reverse(dates);
+            return new Itinerary(flights, dates);
+        }
+
+        @Override
+        public int compareTo(Label other) {
+            int byCost = Double.compare(cost, other.cost);
+            if (byCost != 0) {
+                return byCost;
+            }
+            int byArrival = arrival.compareTo(other.arrival);
+            return byArrival != 0 ? byArrival : Integer.compare(legs, other.legs);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package services;
+
+import constants.Constants;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.DelayQueue;
+
+/**
+ * Places payment holds and releases them when they expire.
+ * Expiry times are kept in a {@link DelayQueue}, so placing a hold costs O(log n) and a single
+ * background reaper thread sleeps until the next hold is due, however many holds are live.
+ * Holds that are claimed or released early are taken out of the queue at once, which scans the
+ * live holds, so the queue only ever holds capacity that is still waiting for payment.
+ */
+public class HoldManager {
+    private static final DelayQueue<PaymentHold> expiries = new DelayQueue<>();
+    private static volatile Duration ttl = Duration.ofSeconds(Constants.PAYMENT_HOLD_TTL_SECONDS);
+    private static Thread reaper;
+
+    /**
+     * Holds the hotel nights, flight seat and taxi ride of a package for the configured time to live.
+     *
+     * @param pck        The package to hold.
+     * @param hotelStart The first night of the hotel stay.
+     * @param hotelEnd   The last night of the hotel stay, inclusive.
+     * @param flightDate The date of the flight.
+     * @param taxiTime   The taxi pickup time.
+     * @return The hold.
+     * @throws IllegalStateException If any part of the package has no capacity left.
+     */
+    public static PaymentHold hold(Package pck, LocalDate hotelStart, LocalDate hotelEnd,
+                                   LocalDate flightDate, LocalDateTime taxiTime) {
+        BookingTransaction booking = BookingTransaction.hold(pck, hotelStart, hotelEnd, flightDate, taxiTime);
+        PaymentHold hold = new PaymentHold(pck, hotelStart, hotelEnd, flightDate, taxiTime,
+                booking, System.nanoTime() + ttl.toNanos());
+        startReaper();
+        expiries.add(hold);
+        return hold;
+    }
+
+    /**
+     * Stops tracking the expiry of a hold that has been claimed or released.
+     *
+     * @param hold The hold.
+     */
+    static void forget(PaymentHold hold) {
+        expiries.remove(hold);
+    }
+
+    /**
+     * Sets how long new holds last before they are released automatically.
+     *
+     * @param timeToLive The time to live of holds placed from now on.
+     */
+    public static void setTtl(Duration timeToLive) {
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Hold time to live must be positive");
+        }
+        ttl = timeToLive;
+    }
+
+    /**
+     * @return How long new holds last.
+     */
+    public static Duration getTtl() {
+        return ttl;
+    }
+
+    private static synchronized void startReaper() {
+        if (reaper != null) {
+            return;
+        }
+        reaper = new Thread(() -> {
+            while (true) {
+                try {
+                    expiries.take().release();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "payment-hold-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+}
@@ -0,0 +1,173 @@
+package services;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only map from int IDs to values, used for the catalogs whose IDs are assigned sequentially.
+ * When the IDs are dense the values sit in a plain array indexed by {@code id - base}; otherwise
+ * they fall back to an open-addressing table with int keys. Either way {@link #get(int)} looks up
+ * a value without boxing the key. Null values are not supported.
+ *
+ * @param <V> The type of the values.
+ */
+public class IdRegistry<V> extends AbstractMap<Integer, V> {
+    private final int base;
+    private final Object[] dense;
+    private final int[] keys;
+    private final Object[] slots;
+    private final int shift;
+    private final int size;
+
+    /**
+     * Copies a map into a registry, choosing the array layout when at least half
+     * of the range between the smallest and largest ID is in use.
+     *
+     * @param source The entries to copy; values must not be null.
+     */
+    public IdRegistry(Map<Integer, ? extends V> source) {
+        this.size = source.size();
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (Integer id : source.keySet()) {
+            min = Math.min(min, id);
+            max = Math.max(max, id);
+        }
+        long span = size == 0 ? 0 : (long) max - min + 1;
+
+        if (span <= 2L * size + 16) {
+            this.base = size == 0 ? 0 : min;
+            this.dense = new Object[(int) span];
+            for (Map.Entry<Integer, ? extends V> entry : source.entrySet()) {
+                dense[entry.getKey() - base] = requireValue(entry.getValue());
+            }
+            this.keys = null;
+            this.slots = null;
+            this.shift = 0;
+        } else {
+            int capacity = Integer.highestOneBit(Math.max(4, size * 2 - 1)) << 1;
+            this.base = 0;
+            this.dense = null;
+            this.keys = new int[capacity];
+            this.slots = new Object[capacity];
+            this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+            for (Map.Entry<Integer, ? extends V> entry : source.entrySet()) {
+                int slot = findSlot(entry.getKey());
+                keys[slot] = entry.getKey();
+                slots[slot] = requireValue(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Looks up a value by its ID without boxing.
+     *
+     * @param id The ID.
+     * @return The value, or null if the ID is not registered.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int id) {
+        if (dense != null) {
+            int index = id - base;
+            return index >= 0 && index < dense.length ? (V) dense[index] : null;
+        }
+        return (V) slots[findSlot(id)];
+    }
+
+    /**
+     * Checks whether an ID is registered without boxing.
+     *
+     * @param id The ID.
+     * @return true if a value is registered for the ID.
+     */
+    public boolean containsKey(int id) {
+        return get(id) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet() {
+        return new AbstractSet<Map.Entry<Integer, V>>() {
+            @Override
+            public Iterator<Map.Entry<Integer, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Finds the slot of an ID, or the empty slot where it belongs. The first slot to probe is the
+     * top log2(capacity) bits of the ID times the golden ratio (Fibonacci hashing), so every
+     * bit of the ID contributes and the whole table is used however large it is.
+     */
+    private int findSlot(int id) {
+        int mask = keys.length - 1;
+        int slot = (id * 0x9E3779B9) >>> shift;
+        while (slots[slot] != null && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static Object requireValue(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("IdRegistry does not support null values");
+        }
+        return value;
+    }
+
+    /**
+     * Iterates the dense array in ID order, or the hash table in slot order.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<Integer, V>> {
+        private final Object[] values = dense != null ? dense : slots;
+        private int next = advance(0);
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<Integer, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int index = next;
+            next = advance(index + 1);
+            int id = dense != null ? base + index : keys[index];
+            return new AbstractMap.SimpleImmutableEntry<>(id, (V) values[index]);
+        }
+    }
+}
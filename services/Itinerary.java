@@ -0,0 +1,116 @@
+package services;
+
+import products.Flight;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A journey made of one or more flights taken one after another, each on a given date.
+ * A flight with a stopover counts as a single leg.
+ */
+public class Itinerary {
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private final List<Flight> legs;
+    private final List<LocalDate> departureDates;
+    private final double totalPrice;
+
+    Itinerary(List<Flight> legs, List<LocalDate> departureDates) {
+        this.legs = Collections.unmodifiableList(new ArrayList<>(legs));
+        this.departureDates = Collections.unmodifiableList(new ArrayList<>(departureDates));
+        double price = 0;
+        for (Flight leg : legs) {
+            price += leg.getPrice();
+        }
+        this.totalPrice = price;
+    }
+
+    /**
+     * Returns when a flight leaving on a date lands, a day later if it crosses midnight.
+     *
+     * @param flight        The flight.
+     * @param departureDate The date it leaves.
+     * @return The arrival date and time.
+     */
+    public static LocalDateTime arrivalOf(Flight flight, LocalDate departureDate) {
+        LocalDate arrivalDate = flight.isDayChange() ? departureDate.plusDays(1) : departureDate;
+        return LocalDateTime.of(arrivalDate, flight.getArrivalTime());
+    }
+
+    /**
+     * @return The flights in the order they are taken.
+     */
+    public List<Flight> getLegs() {
+        return legs;
+    }
+
+    /**
+     * @return The date each leg leaves, in the same order as the legs.
+     */
+    public List<LocalDate> getDepartureDates() {
+        return departureDates;
+    }
+
+    /**
+     * @return When the first flight leaves.
+     */
+    public LocalDateTime getDepartureDateTime() {
+        return LocalDateTime.of(departureDates.get(0), legs.get(0).getDepartureTime());
+    }
+
+    /**
+     * @return When the last flight lands.
+     */
+    public LocalDateTime getArrivalDateTime() {
+        int last = legs.size() - 1;
+        return arrivalOf(legs.get(last), departureDates.get(last));
+    }
+
+    /**
+     * @return The time from the first departure to the last arrival, layovers included.
+     */
+    public Duration getDuration() {
+        return Duration.between(getDepartureDateTime(), getArrivalDateTime());
+    }
+
+    /**
+     * @return The sum of the ticket prices of all legs.
+     */
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    /**
+     * @return The number of changes between flights.
+     */
+    public int getConnectionCount() {
+        return legs.size() - 1;
+    }
+
+    /**
+     * Returns a string representation of the itinerary.
+     *
+     * @return Each leg with its cities, airline and times, followed by the total price.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < legs.size(); i++) {
+            Flight leg = legs.get(i);
+            LocalDate date = departureDates.get(i);
+            if (i > 0) {
+                builder.append(" | ");
+            }
+            builder.append(leg.getDepartureCity()).append(" -> ").append(leg.getArrivalCity())
+                    .append(" (").append(leg.getAirline()).append(", ")
+                    .append(LocalDateTime.of(date, leg.getDepartureTime()).format(TIME_FORMATTER)).append(" - ")
+                    .append(arrivalOf(leg, date).format(TIME_FORMATTER)).append(")");
+        }
+        return builder.append(String.format(", $%.2f", totalPrice)).toString();
+    }
+}
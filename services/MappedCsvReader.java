@@ -0,0 +1,253 @@
+package services;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a CSV file through a memory-mapped buffer, one row at a time.
+ * Fields are tokenized in place as byte offsets into the mapping, and numeric
+ * fields are parsed straight from the bytes without building intermediate Strings.
+ * Quoting is not supported, matching the datasets shipped with the application.
+ */
+public class MappedCsvReader implements AutoCloseable {
+    private static final int MAX_FIELDS = 64;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+    private byte[] scratch = new byte[64];
+    private int position;
+    private int fieldCount;
+
+    /**
+     * Opens and maps the given CSV file, skipping a leading UTF-8 byte order mark if present.
+     *
+     * @param path Path of the CSV file.
+     * @throws IOException If the file cannot be opened or is too large to map.
+     */
+    public MappedCsvReader(String path) throws IOException {
+        this(Paths.get(path));
+    }
+
+    /**
+     * Opens and maps the given CSV file, skipping a leading UTF-8 byte order mark if present.
+     *
+     * @param path Path of the CSV file.
+     * @throws IOException If the file cannot be opened or is too large to map.
+     */
+    public MappedCsvReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("CSV file too large to map: " + path);
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        this.limit = (int) size;
+        if (limit >= 3 && (buffer.get(0) & 0xFF) == 0xEF
+                && (buffer.get(1) & 0xFF) == 0xBB && (buffer.get(2) & 0xFF) == 0xBF) {
+            position = 3;
+        }
+    }
+
+    /**
+     * Advances to the next row and tokenizes its fields.
+     *
+     * @return true if a row was read, false at end of file.
+     */
+    public boolean nextRow() {
+        if (position >= limit) {
+            return false;
+        }
+        int count = 0;
+        int start = position;
+        int i = position;
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == ',' || b == '\n') {
+                if (count < MAX_FIELDS) {
+                    fieldStarts[count] = start;
+                    fieldEnds[count] = trimCarriageReturn(start, i);
+                    count++;
+                }
+                start = i + 1;
+                if (b == '\n') {
+                    break;
+                }
+            }
+            i++;
+        }
+        if (i >= limit && count < MAX_FIELDS) {
+            fieldStarts[count] = start;
+            fieldEnds[count] = trimCarriageReturn(start, limit);
+            count++;
+        }
+        position = i + 1;
+
+        // Mirror String.split, which drops trailing empty fields
+        while (count > 0 && fieldStarts[count - 1] == fieldEnds[count - 1]) {
+            count--;
+        }
+        fieldCount = count;
+        return true;
+    }
+
+    private int trimCarriageReturn(int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            return end - 1;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the number of fields in the current row, ignoring trailing empty fields
+     * the same way String.split does.
+     *
+     * @return The number of fields.
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Checks whether a field of the current row is empty or missing.
+     *
+     * @param index Zero-based field index.
+     * @return true if the field is empty or beyond the last non-empty field.
+     */
+    public boolean isEmpty(int index) {
+        return index >= fieldCount || fieldStarts[index] == fieldEnds[index];
+    }
+
+    /**
+     * Decodes a field of the current row as a UTF-8 String.
+     *
+     * @param index Zero-based field index.
+     * @return The field text, or an empty String if the field is missing.
+     */
+    public String getString(int index) {
+        if (index >= fieldCount) {
+            return "";
+        }
+        int start = fieldStarts[index];
+        int length = fieldEnds[index] - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a field of the current row as a decimal int.
+     *
+     * @param index Zero-based field index.
+     * @return The parsed value.
+     * @throws NumberFormatException If the field is not a valid int.
+     */
+    public int getInt(int index) {
+        if (index >= fieldCount) {
+            throw new NumberFormatException("Missing field " + index);
+        }
+        int i = fieldStarts[index];
+        int end = fieldEnds[index];
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i >= end) {
+            throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field of the current row as a double. Plain decimals with up to 15 significant
+     * digits are converted exactly from the bytes; anything else falls back to Double.parseDouble.
+     *
+     * @param index Zero-based field index.
+     * @return The parsed value.
+     * @throws NumberFormatException If the field is not a valid number.
+     */
+    public double getDouble(int index) {
+        if (index >= fieldCount) {
+            throw new NumberFormatException("Missing field " + index);
+        }
+        int i = fieldStarts[index];
+        int end = fieldEnds[index];
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean seenDigit = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !seenPoint) {
+                seenPoint = true;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || digits >= 15) {
+                return Double.parseDouble(getString(index));
+            }
+            seenDigit = true;
+            mantissa = mantissa * 10 + digit;
+            if (mantissa != 0) {
+                digits++;
+            }
+            if (seenPoint) {
+                fractionDigits++;
+            }
+        }
+        if (!seenDigit) {
+            throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+        }
+        if (fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(getString(index));
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Closes the underlying channel. The mapping itself is released when it is garbage collected.
+     *
+     * @throws IOException If closing the channel fails.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
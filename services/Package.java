@@ -13,34 +13,67 @@ import java.util.ArrayList;
 /**
  * Represents a travel package consisting of a hotel stay, a flight, and a taxi service.
  * It calculates the total cost of the package based on the components and their durations.
+ * <p>
+ * A package only keeps the IDs of its hotel, flight and taxi; each is looked up the first
+ * time it is needed. The cost breakdown is likewise worked out on first use and kept until
+ * a component is replaced, so loading many packages does not touch the products at all.
+ * Saving does not either: until the costs are worked out, the total cost read from the file
+ * is written back as it was.
  */
 public class Package {
     private int id;
-    private int totalCost;
     private int discountedPrice;
+    private boolean discounted; // whether discountedPrice has been set, otherwise it is the total cost
     private String type; // Offered or custom package type
+    private int hotelID;
+    private int flightID;
+    private int taxiID;
     private Hotel hotel;
     private Flight flight;
     private Taxi taxi;
+    private Costs costs;
+    private int recordedTotalCost = -1; // total cost read from packages.txt, or -1 if not read or outdated
     private LocalDate dateStart;
     private LocalDate dateEnd;
     private LocalDate hotelStart;
     private LocalDateTime taxiTime;
     private long daysInHotel;
 
+    /**
+     * The cost of each component of a package, computed together once.
+     */
+    private static final class Costs {
+        private final double hotelCost;
+        private final double flightCost;
+        private final double taxiFare;
+        private final int totalCost;
+
+        private Costs(Hotel hotel, Flight flight, Taxi taxi, long daysInHotel) {
+            this.hotelCost = hotel.getPricePerNight() * daysInHotel;
+            this.flightCost = flight.getPrice();
+            this.taxiFare = taxi.getBaseFare() + (taxi.getPerKmRate() * hotel.getDistanceToAirport());
+            this.totalCost = (int) (hotelCost + flightCost + taxiFare);
+        }
+    }
+
     /**
      * Creates a new Package object by copying the details of another package.
      *
      * @param pck The package to copy.
      */
     public Package(Package pck) {
-        this.hotel = pck.getHotel();
-        this.flight = pck.getFlight();
+        this.hotelID = pck.hotelID;
+        this.flightID = pck.flightID;
+        this.taxiID = pck.taxiID;
+        this.hotel = pck.hotel;
+        this.flight = pck.flight;
+        this.taxi = pck.taxi;
+        this.costs = pck.costs;
+        this.recordedTotalCost = pck.recordedTotalCost;
         this.taxiTime = pck.getTaxiTime();
-        this.taxi = pck.getTaxi();
         this.dateEnd = pck.getDateEnd();
-        this.totalCost = pck.getTotalCost();
-        this.discountedPrice = pck.getDiscountedPrice();
+        this.discountedPrice = pck.discountedPrice;
+        this.discounted = pck.discounted;
         this.daysInHotel = pck.getDaysInHotel();
         this.dateStart = pck.getDateStart();
         this.hotelStart = pck.getHotelStart();
@@ -50,6 +83,7 @@ public class Package {
 
     /**
      * Constructs a new Package object with specified details.
+     * The hotel, flight and taxi are not looked up until they are first used.
      *
      * @param type The type of the package (offered or custom).
      * @param hotelID ID of the hotel included in the package.
@@ -63,9 +97,9 @@ public class Package {
     public Package(String type, int hotelID, int flightID, int taxiID,
                    LocalDate dateStart, LocalDate dateEnd, LocalDateTime taxiTime, int id) {
 
-        this.hotel = Hotel.retrieveHotel(hotelID);
-        this.flight = Flight.retrieveFlight(flightID);
-        this.taxi = Taxi.retrieveTaxi(taxiID);
+        this.hotelID = hotelID;
+        this.flightID = flightID;
+        this.taxiID = taxiID;
         this.dateStart = dateStart;
         this.type = type;
         this.taxiTime = taxiTime;
@@ -80,12 +114,6 @@ public class Package {
         if (daysInHotel <= 0) {
             throw new IllegalArgumentException("End date must be after start date for hotel stay.");
         }
-
-        // Calculate total cost
-        this.totalCost = (int) (hotel.getPricePerNight() * daysInHotel
-                + flight.getPrice()
-                + (taxi.getBaseFare() + (taxi.getPerKmRate() * hotel.getDistanceToAirport())));
-        setDiscountedPrice(totalCost);
     }
 
     /**
@@ -95,7 +123,16 @@ public class Package {
      */
     @Override
     public String toString() {
-        return this.hotel.getName() + "," + this.flight.getAirline() + "," + this.taxi.getTaxiType();
+        return getHotel().getName() + "," + getFlight().getAirline() + "," + getTaxi().getTaxiType();
+    }
+
+    private Costs costs() {
+        Costs current = costs;
+        if (current == null) {
+            current = new Costs(getHotel(), getFlight(), getTaxi(), daysInHotel);
+            costs = current;
+        }
+        return current;
     }
 
     // Getters and Setters with Javadoc comments
@@ -107,6 +144,9 @@ public class Package {
      */
     public void setHotel(Hotel hotel) {
         this.hotel = hotel;
+        this.hotelID = hotel.getId();
+        this.costs = null;
+        this.recordedTotalCost = -1;
     }
 
     /**
@@ -116,6 +156,9 @@ public class Package {
      */
     public void setTaxi(Taxi taxi) {
         this.taxi = taxi;
+        this.taxiID = taxi.getId();
+        this.costs = null;
+        this.recordedTotalCost = -1;
     }
 
     /**
@@ -125,6 +168,9 @@ public class Package {
      */
     public void setFlight(Flight flight) {
         this.flight = flight;
+        this.flightID = flight.getId();
+        this.costs = null;
+        this.recordedTotalCost = -1;
     }
 
     /**
@@ -133,7 +179,54 @@ public class Package {
      * @return The total cost of the package.
      */
     public int getTotalCost() {
-        return totalCost;
+        return costs().totalCost;
+    }
+
+    /**
+     * Gets the total cost to write to packages.txt. This is the total cost once the costs have
+     * been worked out, and until then the total read from the file, so that saving a loaded
+     * package does not look up its hotel, flight and taxi.
+     *
+     * @return The total cost to save.
+     */
+    int getTotalCostToSave() {
+        return costs == null && recordedTotalCost >= 0 ? recordedTotalCost : getTotalCost();
+    }
+
+    /**
+     * Sets the total cost read from packages.txt. It is forgotten once a component is replaced.
+     *
+     * @param totalCost The total cost as read.
+     */
+    void setRecordedTotalCost(int totalCost) {
+        this.recordedTotalCost = totalCost;
+    }
+
+    /**
+     * Gets the cost of the hotel stay: the price per night times the number of nights.
+     *
+     * @return The cost of the hotel stay.
+     */
+    public double getHotelCost() {
+        return costs().hotelCost;
+    }
+
+    /**
+     * Gets the price of the flight ticket.
+     *
+     * @return The cost of the flight.
+     */
+    public double getFlightCost() {
+        return costs().flightCost;
+    }
+
+    /**
+     * Gets the estimated taxi fare from the airport to the hotel.
+     *
+     * @return The cost of the taxi ride.
+     */
+    public double getTaxiFare() {
+        return costs().taxiFare;
     }
 
     /**
@@ -151,6 +244,9 @@ public class Package {
      * @return The hotel object.
      */
     public Hotel getHotel() {
+        if (hotel == null) {
+            hotel = Hotel.retrieveHotel(hotelID);
+        }
         return hotel;
     }
 
@@ -160,6 +256,9 @@ public class Package {
      * @return The flight object.
      */
     public Flight getFlight() {
+        if (flight == null) {
+            flight = Flight.retrieveFlight(flightID);
+        }
         return flight;
     }
 
@@ -169,9 +268,39 @@ public class Package {
      * @return The taxi object.
      */
     public Taxi getTaxi() {
+        if (taxi == null) {
+            taxi = Taxi.retrieveTaxi(taxiID);
+        }
         return taxi;
     }
 
+    /**
+     * Gets the ID of the hotel included in the package without looking the hotel up.
+     *
+     * @return The hotel ID.
+     */
+    public int getHotelID() {
+        return hotelID;
+    }
+
+    /**
+     * Gets the ID of the flight included in the package without looking the flight up.
+     *
+     * @return The flight ID.
+     */
+    public int getFlightID() {
+        return flightID;
+    }
+
+    /**
+     * Gets the ID of the taxi service included in the package without looking the taxi up.
+     *
+     * @return The taxi ID.
+     */
+    public int getTaxiID() {
+        return taxiID;
+    }
+
     /**
      * Gets the start date of the hotel stay.
      *
@@ -274,10 +403,10 @@ public class Package {
     /**
      * Gets the discounted price of the package.
      *
-     * @return The discounted price.
+     * @return The discounted price, or the total cost if no discount has been set.
      */
     public int getDiscountedPrice() {
-        return discountedPrice;
+        return discounted ? discountedPrice : getTotalCost();
     }
 
     /**
@@ -287,5 +416,6 @@ public class Package {
      */
     public void setDiscountedPrice(int discountedPrice) {
         this.discountedPrice = discountedPrice;
+        this.discounted = true;
     }
 }
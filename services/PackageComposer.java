@@ -0,0 +1,245 @@
+package services;
+
+import products.Flight;
+import products.Hotel;
+import products.Taxi;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the cheapest hotel, flight and taxi combinations for a trip, priced the same way as
+ * {@link Package}: nights times the price per night, plus the ticket, plus the taxi's base fare
+ * and per-km rate over the hotel's distance to the airport.
+ * <p>
+ * Only hotels with a room free for the whole stay and flights with a seat left are considered,
+ * as in the package maker. Instead of pricing every combination, the composer walks them in
+ * order of cost with two heaps: one yields hotel and taxi pairs from cheapest to dearest, taking
+ * each hotel's taxis in order of their fare to that hotel, and the other merges those pairs with
+ * the flights sorted by price. A combination whose taxi has no car free for the ride from the
+ * flight's arrival is skipped, so the work done grows with k and the number of such skips rather
+ * than with the number of hotels times flights times taxis.
+ */
+public class PackageComposer {
+
+    private PackageComposer() {
+    }
+
+    /**
+     * Returns the k cheapest feasible packages for a trip, cheapest first.
+     * The packages are not saved; pass one to {@link PackageManager#duplicatePackage(Package)} to create it.
+     *
+     * @param departureCity   City the flight leaves from.
+     * @param destinationCity City of the flight's arrival, the hotel and the taxi.
+     * @param dateStart       Date of the flight and first night of the stay.
+     * @param dateEnd         Date the stay ends.
+     * @param k               Number of packages wanted.
+     * @return Up to k custom packages, with the taxi picking up at the flight's arrival.
+     * @throws IllegalArgumentException If the end date is not after the start date.
+     */
+    public static ArrayList<Package> cheapest(String departureCity, String destinationCity,
+                                              LocalDate dateStart, LocalDate dateEnd, int k) {
+        long nights = ChronoUnit.DAYS.between(dateStart, dateEnd);
+        if (nights <= 0) {
+            throw new IllegalArgumentException("End date must be after start date for hotel stay.");
+        }
+        ArrayList<Package> result = new ArrayList<>();
+        if (k <= 0) {
+            return result;
+        }
+
+        ArrayList<Hotel> hotels = Hotel.availableRoomsListMaker(dateStart, dateEnd, Hotel.selectByCity(destinationCity));
+        ArrayList<Flight> flights = Flight.availableSeatsListMaker(dateStart, Flight.selectByCity(destinationCity, departureCity));
+        List<Taxi> taxis = Taxi.selectByCity(destinationCity);
+        if (hotels.isEmpty() || flights.isEmpty() || taxis.isEmpty()) {
+            return result;
+        }
+        flights.sort(Comparator.comparingDouble(Flight::getPrice).thenComparingInt(Flight::getId));
+
+        StayStream stays = new StayStream(hotels, taxis, nights);
+        HashMap<String, Boolean> taxiFree = new HashMap<>();
+        PriorityQueue<Combination> frontier = new PriorityQueue<>();
+        if (stays.get(0) != null) {
+            frontier.add(new Combination(0, 0, stays.get(0).cost + flights.get(0).getPrice()));
+        }
+
+        while (!frontier.isEmpty() && result.size() < k) {
+            Combination next = frontier.poll();
+            Stay stay = stays.get(next.stay);
+            Flight flight = flights.get(next.flight);
+
+            // Every stay is first reached with the cheapest flight, and each stay's flights are then taken in order.
+            if (next.flight + 1 < flights.size()) {
+                frontier.add(new Combination(next.stay, next.flight + 1, stay.cost + flights.get(next.flight + 1).getPrice()));
+            }
+            if (next.flight == 0 && stays.get(next.stay + 1) != null) {
+                frontier.add(new Combination(next.stay + 1, 0, stays.get(next.stay + 1).cost + flights.get(0).getPrice()));
+            }
+
+            LocalDate arrivalDate = flight.isDayChange() ? dateStart.plusDays(1) : dateStart;
+            LocalDateTime pickup = LocalDateTime.of(arrivalDate, flight.getArrivalTime());
+            int minutes = Taxi.travelMinutes(stay.hotel);
+            boolean free = taxiFree.computeIfAbsent(stay.taxi.getId() + "@" + pickup + "+" + minutes,
+                    key -> stay.taxi.getMinAvailability(pickup, pickup.plusMinutes(minutes)) > 0);
+            if (free) {
+                result.add(new Package("custom", stay.hotel.getId(), flight.getId(), stay.taxi.getId(),
+                        dateStart, dateEnd, pickup, 0));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A hotel and the taxi from the airport to it, with the cost of the nights and the ride.
+     */
+    private static final class Stay {
+        private final Hotel hotel;
+        private final Taxi taxi;
+        private final double cost;
+
+        private Stay(Hotel hotel, Taxi taxi, double cost) {
+            this.hotel = hotel;
+            this.taxi = taxi;
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * Indexes into the stays and the sorted flights, with the cost of that combination.
+     */
+    private static final class Combination implements Comparable<Combination> {
+        private final int stay;
+        private final int flight;
+        private final double cost;
+
+        private Combination(int stay, int flight, double cost) {
+            this.stay = stay;
+            this.flight = flight;
+            this.cost = cost;
+        }
+
+        @Override
+        public int compareTo(Combination other) {
+            int byCost = Double.compare(cost, other.cost);
+            if (byCost != 0) {
+                return byCost;
+            }
+            return stay != other.stay ? Integer.compare(stay, other.stay) : Integer.compare(flight, other.flight);
+        }
+    }
+
+    /**
+     * Produces hotel and taxi pairs in order of cost, only as far as they are asked for.
+     * Each hotel starts at its cheapest taxi, found with one pass over the taxis; its taxis are
+     * sorted by fare, ties broken by ID, only if the hotel comes up a second time.
+     */
+    private static final class StayStream {
+        private final List<Taxi> taxis;
+        private final long nights;
+        private final PriorityQueue<HotelCursor> hotels;
+        private final ArrayList<Stay> produced = new ArrayList<>();
+
+        private StayStream(List<Hotel> hotels, List<Taxi> taxis, long nights) {
+            this.taxis = taxis;
+            this.nights = nights;
+            ArrayList<HotelCursor> cursors = new ArrayList<>(hotels.size());
+            for (Hotel hotel : hotels) {
+                cursors.add(new HotelCursor(hotel, cheapestTaxi(hotel)));
+            }
+            this.hotels = new PriorityQueue<>(cursors);
+        }
+
+        /**
+         * @return The stay at the given position in cost order, or null if there are no more.
+         */
+        private Stay get(int index) {
+            while (produced.size() <= index && !hotels.isEmpty()) {
+                HotelCursor cursor = hotels.poll();
+                produced.add(new Stay(cursor.hotel, cursor.taxi, cursor.cost));
+                if (cursor.advance()) {
+                    hotels.add(cursor);
+                }
+            }
+            return index < produced.size() ? produced.get(index) : null;
+        }
+
+        private Taxi cheapestTaxi(Hotel hotel) {
+            Taxi best = null;
+            for (Taxi taxi : taxis) {
+                if (best == null || compareFares(taxi, best, hotel) < 0) {
+                    best = taxi;
+                }
+            }
+            return best;
+        }
+
+        private static int compareFares(Taxi a, Taxi b, Hotel hotel) {
+            int byFare = Double.compare(fare(a, hotel), fare(b, hotel));
+            return byFare != 0 ? byFare : Integer.compare(a.getId(), b.getId());
+        }
+
+        private static double fare(Taxi taxi, Hotel hotel) {
+            return taxi.getBaseFare() + (taxi.getPerKmRate() * hotel.getDistanceToAirport());
+        }
+
+        /**
+         * A hotel and the position of its current taxi in order of fare.
+         */
+        private final class HotelCursor implements Comparable<HotelCursor> {
+            private final Hotel hotel;
+            private final double nightsCost;
+            private Taxi taxi;
+            private double cost;
+            private Taxi[] byFare;
+            private int position;
+
+            private HotelCursor(Hotel hotel, Taxi cheapest) {
+                this.hotel = hotel;
+                this.nightsCost = hotel.getPricePerNight() * nights;
+                setTaxi(cheapest);
+            }
+
+            private void setTaxi(Taxi taxi) {
+                this.taxi = taxi;
+                this.cost = nightsCost + fare(taxi, hotel);
+            }
+
+            /**
+             * Moves on to the next dearest taxi.
+             *
+             * @return false if the hotel has no taxis left.
+             */
+            private boolean advance() {
+                if (byFare == null) {
+                    byFare = taxis.toArray(new Taxi[0]);
+                    Arrays.sort(byFare, (a, b) -> compareFares(a, b, hotel));
+                    position = 0;
+                }
+                position++;
+                if (position >= byFare.length) {
+                    return false;
+                }
+                setTaxi(byFare[position]);
+                return true;
+            }
+
+            @Override
+            public int compareTo(HotelCursor other) {
+                int byCost = Double.compare(cost, other.cost);
+                if (byCost != 0) {
+                    return byCost;
+                }
+                return hotel.getId() != other.hotel.getId()
+                        ? Integer.compare(hotel.getId(), other.hotel.getId())
+                        : Integer.compare(taxi.getId(), other.taxi.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package services;
+
+/**
+ * Receives notice of packages created or changed through the {@link PackageManager},
+ * so that screens listing packages can update just the affected rows.
+ */
+public interface PackageListener {
+
+    /**
+     * Called after a package has been created or changed and the change has been saved.
+     *
+     * @param pck The package in its new state.
+     */
+    void packageChanged(Package pck);
+}
@@ -6,34 +6,57 @@ import products.Product;
 import products.Taxi;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Scanner;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Manages travel packages including creation, modification, and persistence of package data.
  * Handles package operations such as creating, editing, and retrieving travel packages.
+ * <p>
+ * Packages are read from services/packages.txt once and served from memory afterwards. Saving a
+ * package appends its row to the file, and a later row for the same ID replaces an earlier one
+ * when the file is read; once superseded rows outnumber the packages, the file is rewritten.
+ * Every saved package is announced to the registered {@link PackageListener}s.
+ * <p>
+ * Besides the dictionary, the packages are kept grouped by type ("offered", "custom" and
+ * "not offered"). The groups are updated whenever a package is saved, so listing the packages
+ * of a type or counting the active ones does not go through every package.
  */
 public class PackageManager {
-    public static HashMap<Integer,Package> packageDict;
+    private static final String FILE_PATH = "services/packages.txt";
+    private static final int MIN_ROWS_BEFORE_REWRITE = 1000;
+    public static volatile HashMap<Integer,Package> packageDict;
     private static DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
     private static int newID=400000;
+    private static int fileRows;
+    private static final CopyOnWriteArrayList<PackageListener> listeners = new CopyOnWriteArrayList<>();
+    private static final HashMap<String, LinkedHashMap<Integer,Package>> packagesByType = new HashMap<>();
 
     /**
-     * Loads package data from file into packageDict HashMap.
+     * Loads package data from file into packageDict HashMap, unless this has already been done.
      */
-    public static void packageDictGenerator() {
-        packageDict = new HashMap<Integer,Package>();
-        try {
-            File file = new File("services/packages.txt");
-            Scanner scanner = new Scanner(file);
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim();
+    public static synchronized void packageDictGenerator() {
+        if (packageDict != null) {
+            return;
+        }
+        HashMap<Integer,Package> loaded = new HashMap<Integer,Package>();
+        fileRows = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(FILE_PATH))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
                 if (line.isEmpty()) {
                     continue;
                 }
@@ -45,26 +68,73 @@ public class PackageManager {
                 int id = Integer.parseInt(lineSep[0]);
 
                 Package aPackage = new Package(lineSep[1],Integer.parseInt(lineSep[2]),Integer.parseInt(lineSep[3])
-                        ,Integer.parseInt(lineSep[4]),LocalDate.parse(lineSep[7],formatter),LocalDate.parse(lineSep[8],formatter),LocalDateTime.parse(lineSep[9],dateTimeFormatter),id);
+                        ,Integer.parseInt(lineSep[4]),parseDate(lineSep[7]),parseDate(lineSep[8]),parseDateTime(lineSep[9]),id);
 
+                aPackage.setRecordedTotalCost(Integer.parseInt(lineSep[5]));
                 aPackage.setDiscountedPrice(Integer.parseInt(lineSep[6]));
-                packageDict.put(id, aPackage);
+                loaded.put(id, aPackage);
+                fileRows++;
             }
-            scanner.close();
         } catch (FileNotFoundException f) {
             System.out.println(f);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        packagesByType.clear();
+        for (Package pck : loaded.values()) {
+            index(pck);
+        }
+        packageDict = loaded;
+    }
+
+    /**
+     * Parses a yyyy-MM-dd date as written by {@link #row(Package)}, reading the fields directly
+     * since this is done for every row on load; anything else goes through the formatter.
+     */
+    private static LocalDate parseDate(String text) {
+        if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(text, formatter);
+    }
+
+    /**
+     * Parses a yyyy-MM-dd HH:mm date and time the same way as {@link #parseDate(String)}.
+     */
+    private static LocalDateTime parseDateTime(String text) {
+        if (text.length() == 16 && text.charAt(10) == ' ' && text.charAt(13) == ':') {
+            int hour = digits(text, 11, 13);
+            int minute = digits(text, 14, 16);
+            if (hour >= 0 && minute >= 0) {
+                return LocalDateTime.of(parseDate(text.substring(0, 10)), LocalTime.of(hour, minute));
+            }
         }
+        return LocalDateTime.parse(text, dateTimeFormatter);
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
     }
 
     /**
      * Marks a package as "not offered" instead of physically deleting it.
      * @param packageId ID of the package to delete
      */
-    public static void deletePackage(int packageId) {
-        if (packageDict == null) {
-            packageDict = new HashMap<>();
-            packageDictGenerator();
-        }
+    public static synchronized void deletePackage(int packageId) {
+        packageDictGenerator();
 
         Package toDelete = packageDict.get(packageId);
 
@@ -74,7 +144,7 @@ public class PackageManager {
         }
 
         toDelete.setType("not offered");
-        updatePackagesFile();
+        savePackage(toDelete);
         System.out.println("Package " + packageId + " is now marked as 'not offered'.");
     }
 
@@ -82,17 +152,43 @@ public class PackageManager {
      * Returns all packages that are currently being offered.
      * @return HashMap of active packages with their IDs as keys
      */
-    public static HashMap<Integer,Package> getActivePackages(){
+    public static synchronized HashMap<Integer,Package> getActivePackages(){
         packageDictGenerator();
         HashMap<Integer,Package> returnDict = new HashMap<Integer,Package>();
-        for(Package p: packageDict.values()) {
-            if(!p.getType().equals("not offered")){
-                returnDict.put(p.getId(),p);
+        for (Map.Entry<String, LinkedHashMap<Integer,Package>> view : packagesByType.entrySet()) {
+            if (!view.getKey().equals("not offered")) {
+                returnDict.putAll(view.getValue());
             }
         }
         return returnDict;
     }
 
+    /**
+     * Returns the number of packages that are currently being offered, without listing them.
+     * @return Number of active packages
+     */
+    public static synchronized int getActivePackageCount() {
+        packageDictGenerator();
+        int count = 0;
+        for (Map.Entry<String, LinkedHashMap<Integer,Package>> view : packagesByType.entrySet()) {
+            if (!view.getKey().equals("not offered")) {
+                count += view.getValue().size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the packages of a type, in the order they were created or last changed.
+     * @param type Package type ("offered", "custom" or "not offered")
+     * @return The packages of that type
+     */
+    public static synchronized ArrayList<Package> getPackagesOfType(String type) {
+        packageDictGenerator();
+        LinkedHashMap<Integer,Package> view = packagesByType.get(type);
+        return view == null ? new ArrayList<>() : new ArrayList<>(view.values());
+    }
+
     /**
      * @return The next available package ID
      */
@@ -105,7 +201,7 @@ public class PackageManager {
      * @param packageId ID of the package to retrieve
      * @return The requested Package object or null if not found
      */
-    public static Package retrievePackage(int packageId) {
+    public static synchronized Package retrievePackage(int packageId) {
         packageDictGenerator();
         return packageDict.get(packageId);
     }
@@ -113,7 +209,7 @@ public class PackageManager {
     /**
      * Generates the next available package ID.
      */
-    public static void idGenerator() {
+    public static synchronized void idGenerator() {
         if (packageDict == null|| packageDict.isEmpty()) {
             packageDictGenerator();
         }
@@ -133,12 +229,12 @@ public class PackageManager {
      * @param taxiTime Scheduled taxi pickup time
      * @return The newly created Package object
      */
-    public static Package makePackage(String type, int hotelID, int flightID, int taxiID, LocalDate dateStart, LocalDate dateEnd, LocalDateTime taxiTime){
+    public static synchronized Package makePackage(String type, int hotelID, int flightID, int taxiID, LocalDate dateStart, LocalDate dateEnd, LocalDateTime taxiTime){
         idGenerator();
         Package newPack = new Package(type,hotelID,flightID,taxiID,dateStart,dateEnd,taxiTime,newID);
         newPack.setId(newID);
         packageDict.put(newID,newPack);
-        updatePackagesFile();
+        savePackage(newPack);
         return newPack;
     }
 
@@ -147,34 +243,98 @@ public class PackageManager {
      * @param pck Package to duplicate
      * @return The duplicated Package object
      */
-    public static Package duplicatePackage(Package pck){
+    public static synchronized Package duplicatePackage(Package pck){
         idGenerator();
         Package newPack = new Package(pck);
         newPack.setId(newID);
         packageDict.put(newID,newPack);
-        updatePackagesFile();
+        savePackage(newPack);
         return newPack;
     }
 
     /**
-     * Updates the packages.txt file with current package data.
+     * Saves a created or changed package by appending its row to packages.txt, and notifies the
+     * package listeners. Once superseded rows outnumber the packages, the whole file is
+     * rewritten instead.
+     * @param pck Package to save
      */
-    public static void updatePackagesFile() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("services/packages.txt"))) {
-            for (int id : packageDict.keySet()) {
-                Package pck = packageDict.get(id);
-                writer.write(id + "," + pck.getType() + "," + pck.getHotel().getId() + ","
-                        + pck.getFlight().getId() + "," + pck.getTaxi().getId() + ","
-                        + pck.getTotalCost() + "," + pck.getDiscountedPrice() + "," + pck.getDateStart().format(formatter) + ","
-                        + pck.getDateEnd().format(formatter) + "," + pck.getTaxiTime().format(dateTimeFormatter));
+    public static synchronized void savePackage(Package pck) {
+        packageDictGenerator();
+        if (fileRows >= MIN_ROWS_BEFORE_REWRITE && fileRows >= 2 * packageDict.size()) {
+            updatePackagesFile();
+        } else {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_PATH, true))) {
+                writer.write(row(pck));
                 writer.newLine();
+                fileRows++;
+            } catch (IOException e) {
+                System.out.println("Error updating packages file: " + e.getMessage());
             }
+        }
+        index(pck);
+        for (PackageListener listener : listeners) {
+            listener.packageChanged(pck);
+        }
+    }
+
+    /**
+     * Rewrites the packages.txt file with current package data, one row per package.
+     * The rows are written to a temporary file that replaces packages.txt atomically.
+     */
+    public static synchronized void updatePackagesFile() {
+        packageDictGenerator();
+        Path temp = Paths.get(FILE_PATH + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            for (Package pck : packageDict.values()) {
+                writer.write(row(pck));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.out.println("Error updating packages file: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp, Paths.get(FILE_PATH), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            fileRows = packageDict.size();
             System.out.println("Packages successfully written to file.");
         } catch (IOException e) {
             System.out.println("Error updating packages file: " + e.getMessage());
         }
     }
 
+    /**
+     * Registers a listener to be notified of every saved package.
+     * @param listener The listener to add
+     */
+    public static void addPackageListener(PackageListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops notifying a listener.
+     * @param listener The listener to remove
+     */
+    public static void removePackageListener(PackageListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Moves a package into the group of its current type.
+     */
+    private static void index(Package pck) {
+        for (LinkedHashMap<Integer,Package> view : packagesByType.values()) {
+            view.remove(pck.getId());
+        }
+        packagesByType.computeIfAbsent(pck.getType(), k -> new LinkedHashMap<>()).put(pck.getId(), pck);
+    }
+
+    private static String row(Package pck) {
+        return pck.getId() + "," + pck.getType() + "," + pck.getHotelID() + ","
+                + pck.getFlightID() + "," + pck.getTaxiID() + ","
+                + pck.getTotalCostToSave() + "," + pck.getDiscountedPrice() + "," + pck.getDateStart().format(formatter) + ","
+                + pck.getDateEnd().format(formatter) + "," + pck.getTaxiTime().format(dateTimeFormatter);
+    }
+
     /**
      * Creates a new package based on an existing one with updated components.
      * @param packageId ID of the package to edit
@@ -185,27 +345,26 @@ public class PackageManager {
      * @param newDateEnd New end date (optional)
      * @return The newly created Package object with updated components
      */
-    public static Package editPackage(int packageId, Integer newHotelId, Integer newFlightId, Integer newTaxiId,
+    public static synchronized Package editPackage(int packageId, Integer newHotelId, Integer newFlightId, Integer newTaxiId,
                                       LocalDate newDateStart, LocalDate newDateEnd) {
-        PackageManager.packageDictGenerator();
+        packageDictGenerator();
         Package currentPackage = packageDict.get(packageId);
         if (currentPackage == null) {
             System.out.println("Package not found: " + packageId);
             return null;
         }
 
-        packageDict.get(packageId).setType("not offered");
-        updatePackagesFile();
+        currentPackage.setType("not offered");
+        savePackage(currentPackage);
 
-        int hotelId = newHotelId != null ? newHotelId : currentPackage.getHotel().getId();
-        int flightId = newFlightId != null ? newFlightId : currentPackage.getFlight().getId();
-        int taxiId = newTaxiId != null ? newTaxiId : currentPackage.getTaxi().getId();
+        int hotelId = newHotelId != null ? newHotelId : currentPackage.getHotelID();
+        int flightId = newFlightId != null ? newFlightId : currentPackage.getFlightID();
+        int taxiId = newTaxiId != null ? newTaxiId : currentPackage.getTaxiID();
         LocalDate dateStart = newDateStart != null ? newDateStart : currentPackage.getDateStart();
         LocalDate dateEnd = newDateEnd != null ? newDateEnd : currentPackage.getDateEnd();
         LocalDateTime taxiTime = LocalDateTime.of(dateStart, Flight.retrieveFlight(flightId).getArrivalTime());
 
         Package newPackage = makePackage("offered", hotelId, flightId, taxiId, dateStart, dateEnd, taxiTime);
-        updatePackagesFile();
 
         return newPackage;
     }
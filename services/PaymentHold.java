@@ -0,0 +1,97 @@
+package services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hotel nights, a flight seat and a taxi ride held for a customer while they confirm payment.
+ * A hold ends exactly once: it is either claimed by {@link Vendor#packageSeller(PaymentHold, Users.Customer)},
+ * released by the customer, or released by {@link HoldManager} when it expires.
+ */
+public class PaymentHold implements Delayed {
+    private final Package pck;
+    private final LocalDate hotelStart;
+    private final LocalDate hotelEnd;
+    private final LocalDate flightDate;
+    private final LocalDateTime taxiTime;
+    private final BookingTransaction booking;
+    private final long expiresAtNanos;
+    private final AtomicBoolean active = new AtomicBoolean(true);
+
+    PaymentHold(Package pck, LocalDate hotelStart, LocalDate hotelEnd, LocalDate flightDate,
+                LocalDateTime taxiTime, BookingTransaction booking, long expiresAtNanos) {
+        this.pck = pck;
+        this.hotelStart = hotelStart;
+        this.hotelEnd = hotelEnd;
+        this.flightDate = flightDate;
+        this.taxiTime = taxiTime;
+        this.booking = booking;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Takes over the held capacity so that it can be committed.
+     *
+     * @return The transaction holding the capacity, or null if the hold has already expired or been released.
+     */
+    BookingTransaction claim() {
+        if (!active.compareAndSet(true, false)) {
+            return null;
+        }
+        HoldManager.forget(this);
+        return booking;
+    }
+
+    /**
+     * Gives the held capacity back, unless the hold has already been claimed or released.
+     */
+    public void release() {
+        if (active.compareAndSet(true, false)) {
+            HoldManager.forget(this);
+            booking.rollback();
+        }
+    }
+
+    /**
+     * @return true if the capacity is still held.
+     */
+    public boolean isActive() {
+        return active.get();
+    }
+
+    public Package getPackage() {
+        return pck;
+    }
+
+    public LocalDate getHotelStart() {
+        return hotelStart;
+    }
+
+    public LocalDate getHotelEnd() {
+        return hotelEnd;
+    }
+
+    public LocalDate getFlightDate() {
+        return flightDate;
+    }
+
+    public LocalDateTime getTaxiTime() {
+        return taxiTime;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(expiresAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other instanceof PaymentHold) {
+            return Long.compare(expiresAtNanos, ((PaymentHold) other).expiresAtNanos);
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+}
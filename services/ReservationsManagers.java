@@ -5,7 +5,9 @@ import core.App;
 import databases.CustomerDB;
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.Format;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -18,28 +20,48 @@ import reservationlogs.Logger;
 
 /**
  * Manages the creation, storage, and modification of hotel reservations.
+ * The methods are synchronized on the class, so concurrent sessions see a consistent reservation map.
+ * <p>
+ * Reservations are read from the storage file once and the map in memory is the source of truth
+ * afterwards. Every change appends the reservation's new row to the file, and a later row for
+ * the same ID replaces an earlier one when the file is read, with a "discarded" row removing the
+ * reservation. Once superseded rows outnumber the live ones, the file is rewritten with one row
+ * per reservation. The IDs of each customer's reservations are indexed as well, so a customer's
+ * travel history is a lookup rather than a scan.
  */
 public class ReservationsManagers {
     private static DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final String FILE_PATH = "services/reservations.txt";
+    private static final String DISCARDED = "discarded";
+    private static final int MIN_ROWS_BEFORE_REWRITE = 1000;
     private static final Map<Integer, Reservation> reservations = new HashMap<>();
+    private static final Map<Integer, LinkedHashSet<Integer>> reservationIdsByCustomer = new HashMap<>();
     private static int nextId = 500000;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static boolean loaded;
+    private static int fileRows;
 
     /**
-     * Loads all reservations from storage file into memory.
+     * Loads all reservations from storage file into memory, unless this has already been done.
      */
-    public static void loadReservations() {
+    public static synchronized void loadReservations() {
+        if (loaded) {
+            return;
+        }
         reservations.clear();
+        reservationIdsByCustomer.clear();
+        fileRows = 0;
+        loaded = true;
 
         if (!Files.exists(Paths.get(FILE_PATH))) {
             System.out.println("No existing reservations file found. Starting fresh.");
             return;
         }
 
+        PackageManager.packageDictGenerator();
+        HashMap<Integer, Package> packages = PackageManager.packageDict;
         try (BufferedReader reader = new BufferedReader(new FileReader(FILE_PATH))) {
             String line;
-            Set<Integer> processedIds = new HashSet<>();
 
             while ((line = reader.readLine()) != null) {
                 if (line.trim().isEmpty()) {
@@ -53,29 +75,28 @@ public class ReservationsManagers {
                 }
 
                 int id = Integer.parseInt(parts[0]);
+                fileRows++;
+                if (id >= nextId) {
+                    nextId = id + 1;
+                }
 
-                if (processedIds.contains(id)) {
-                    System.out.println("Skipping duplicate reservation ID: " + id);
+                unindex(reservations.remove(id));
+                if (parts[2].equals(DISCARDED)) {
                     continue;
                 }
 
-                processedIds.add(id);
-
                 int packageId = Integer.parseInt(parts[1]);
                 boolean status = parts[2].equalsIgnoreCase("confirmed");
                 String userId = parts[5];
 
-                Package pck = PackageManager.retrievePackage(packageId);
+                Package pck = packages.get(packageId);
                 Customer user = CustomerDB.retrieveCustomer(userId);
 
                 Reservation res = new Reservation(id, pck, user);
                 res.setStatus(status);
 
                 reservations.put(id, res);
-
-                if (id >= nextId) {
-                    nextId = id + 1;
-                }
+                index(res);
             }
         } catch (IOException e) {
             System.out.println("Error reading reservations file: " + e.getMessage());
@@ -83,40 +104,24 @@ public class ReservationsManagers {
     }
 
     /**
-     * Saves all reservations from memory to storage file.
+     * Saves all reservations from memory to storage file, one row per reservation.
+     * The rows are written to a temporary file that replaces the storage file atomically.
      */
-    public static void saveReservations() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_PATH))) {
+    public static synchronized void saveReservations() {
+        loadReservations();
+        Path temp = Paths.get(FILE_PATH + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
             for (Reservation res : reservations.values()) {
-                int id = res.getId();
-                int packageId = (res.getRelatedPackage() != null)
-                        ? res.getRelatedPackage().getId()
-                        : 0;
-                String status = res.isStatus() ? "confirmed" : "cancelled";
-
-                String dateStartStr = (res.getDateStart() == null)
-                        ? ""
-                        : res.getDateStart().format(DATE_FORMATTER);
-
-                String dateEndStr = (res.getDateEnd() == null)
-                        ? ""
-                        : res.getDateEnd().format(DATE_FORMATTER);
-
-                String userId = (res.getCustomer() != null)
-                        ? String.valueOf(res.getCustomer().getID())
-                        : "customer is null";
-
-                writer.write(String.join(",",
-                        String.valueOf(id),
-                        String.valueOf(packageId),
-                        status,
-                        dateStartStr,
-                        dateEndStr,
-                        userId
-                ));
+                writer.write(row(res));
                 writer.newLine();
             }
-
+        } catch (IOException e) {
+            System.out.println("Error saving reservations file: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp, Paths.get(FILE_PATH), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            fileRows = reservations.size();
         } catch (IOException e) {
             System.out.println("Error saving reservations file: " + e.getMessage());
         }
@@ -128,37 +133,80 @@ public class ReservationsManagers {
      * @param user Customer making the reservation
      * @return New reservation
      */
-    public static Reservation makeReservation(Package pck, Customer user) throws FileNotFoundException {
+    public static synchronized Reservation makeReservation(Package pck, Customer user) throws FileNotFoundException {
         loadReservations();
+        return makeReservation(generateId(), pck, user);
+    }
 
-        int id = generateId();
+    /**
+     * Creates a new reservation under an ID taken earlier with {@link #generateId()} and saves it to storage.
+     * @param id Reservation ID
+     * @param pck Package to reserve
+     * @param user Customer making the reservation
+     * @return New reservation
+     */
+    static synchronized Reservation makeReservation(int id, Package pck, Customer user) throws FileNotFoundException {
+        loadReservations();
         Reservation newRes = new Reservation(id, pck, user);
         newRes.setStatus(true);
 
         reservations.put(id, newRes);
-        saveReservations();
-        Logger.logHotelreservation(App.user.getUsername(),pck.getHotel().getName(),pck.getHotel().getCity(),pck.getHotel().getRoomType(),pck.getHotelStart().format(formatter),pck.getDateEnd().format(formatter));
-        Logger.logTaxireservation(App.user.getUsername(), pck.getTaxi().getCity(),pck.getTaxi().getTaxiType(),pck.getTaxiTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-        user.loadTravelHistory();
+        index(newRes);
+        persist(row(newRes));
+        try {
+            Logger.logHotelreservation(App.user.getUsername(),pck.getHotel().getName(),pck.getHotel().getCity(),pck.getHotel().getRoomType(),pck.getHotelStart().format(formatter),pck.getDateEnd().format(formatter));
+            Logger.logTaxireservation(App.user.getUsername(), pck.getTaxi().getCity(),pck.getTaxi().getTaxiType(),pck.getTaxiTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+            user.loadTravelHistory();
+        } catch (RuntimeException e) {
+            discardReservation(id);
+            throw e;
+        }
         return newRes;
     }
 
+    /**
+     * Removes a reservation whose booking could not be completed and saves the change.
+     * @param id Reservation ID
+     */
+    static synchronized void discardReservation(int id) {
+        loadReservations();
+        Reservation res = reservations.remove(id);
+        if (res != null) {
+            unindex(res);
+            persist(id + ",0," + DISCARDED + ",,," + customerId(res));
+        }
+    }
+
     /**
      * Retrieves a reservation by ID.
      * @param id Reservation ID
      * @return Reservation if found, null otherwise
      */
-    public static Reservation getReservation(int id) {
+    public static synchronized Reservation getReservation(int id) {
         loadReservations();
         return reservations.get(id);
     }
 
+    /**
+     * Retrieves the reservations of a customer, confirmed and cancelled, in the order they were made.
+     * @param customerId Customer ID
+     * @return The customer's reservations
+     */
+    public static synchronized ArrayList<Reservation> getReservationsOfCustomer(int customerId) {
+        loadReservations();
+        ArrayList<Reservation> result = new ArrayList<>();
+        for (int id : reservationIdsByCustomer.getOrDefault(customerId, new LinkedHashSet<>())) {
+            result.add(reservations.get(id));
+        }
+        return result;
+    }
+
     /**
      * Cancels a reservation and processes refund based on cancellation type.
      * @param id Reservation ID
      * @param keyword Cancellation type (immediate, far, inter, close)
      */
-    public static void ReservationCancellation(int id, String keyword) throws FileNotFoundException {
+    public static synchronized void ReservationCancellation(int id, String keyword) throws IOException {
         loadReservations();
         Reservation res = reservations.get(id);
 
@@ -173,29 +221,21 @@ public class ReservationsManagers {
 
         try {
             res.setStatus(false);
-            saveReservations();
+            persist(row(res));
 
             Hotel hotel = pck.getHotel();
-            for (LocalDate date = pck.getHotelStart(); !date.isAfter(pck.getDateEnd()); date = date.plusDays(1)) {
-                hotel.cancelBook(date);
-            }
+            hotel.cancelRange(pck.getHotelStart(), pck.getDateEnd());
 
             Flight flight = pck.getFlight();
             LocalDate flightDate = flight.isDayChange() ? pck.getDateStart().minusDays(1) : pck.getDateStart();
             flight.cancelBook(flightDate);
 
             Taxi taxi = pck.getTaxi();
-            double distanceKm = hotel.getDistanceToAirport();
-            int travelTimeMinutes = (int) Math.ceil((distanceKm / 60.0) * 60);
-
             LocalDateTime taxiPickupTime = pck.getTaxiTime();
-            LocalDateTime taxiEndTime = taxiPickupTime.plusMinutes(travelTimeMinutes);
+            LocalDateTime taxiEndTime = taxiPickupTime.plusMinutes(Taxi.travelMinutes(hotel));
 
-            LocalDateTime currentTime = taxiPickupTime;
-            while (!currentTime.isAfter(taxiEndTime)) {
-                taxi.cancelBook(currentTime);
-                currentTime = currentTime.plusMinutes(2);
-            }
+            taxi.release(taxiPickupTime, taxiEndTime);
+            WriteBehindFlusher.flushAll();
 
             int refundAmount;
             switch (keyword.toLowerCase()) {
@@ -216,7 +256,6 @@ public class ReservationsManagers {
             Customer customer = res.getCustomer();
             customer.loadTravelHistory();
             Vendor.moneyReturn(res.getId(), refundAmount);
-            saveReservations();
             Logger.logCancellation(App.user.getUsername(),"Package",String.valueOf(res.getId()),res.toString());
 
         } catch (Exception e) {
@@ -230,7 +269,7 @@ public class ReservationsManagers {
      * @param res Reservation to cancel
      * @return Cancellation type applied
      */
-    public static String cancellationInitiator(Reservation res) throws FileNotFoundException {
+    public static String cancellationInitiator(Reservation res) throws IOException {
         if (res == null) {
             throw new IllegalArgumentException("Reservation cannot be null");
         }
@@ -266,16 +305,84 @@ public class ReservationsManagers {
      * Retrieves all reservations from storage.
      * @return Collection of all reservations
      */
-    public static Collection<Reservation> getAllReservations() {
+    public static synchronized Collection<Reservation> getAllReservations() {
         loadReservations();
-        return reservations.values();
+        return new ArrayList<>(reservations.values());
+    }
+
+    /**
+     * Appends a reservation row to the storage file, rewriting the file instead once superseded
+     * rows outnumber the live reservations.
+     */
+    private static void persist(String row) {
+        if (fileRows >= MIN_ROWS_BEFORE_REWRITE && fileRows >= 2 * reservations.size()) {
+            saveReservations();
+            return;
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_PATH, true))) {
+            writer.write(row);
+            writer.newLine();
+            fileRows++;
+        } catch (IOException e) {
+            System.out.println("Error saving reservations file: " + e.getMessage());
+        }
+    }
+
+    private static void index(Reservation res) {
+        if (res.getCustomer() != null) {
+            reservationIdsByCustomer.computeIfAbsent(res.getCustomer().getID(), k -> new LinkedHashSet<>()).add(res.getId());
+        }
+    }
+
+    private static void unindex(Reservation res) {
+        if (res == null || res.getCustomer() == null) {
+            return;
+        }
+        LinkedHashSet<Integer> ids = reservationIdsByCustomer.get(res.getCustomer().getID());
+        if (ids != null) {
+            ids.remove(res.getId());
+            if (ids.isEmpty()) {
+                reservationIdsByCustomer.remove(res.getCustomer().getID());
+            }
+        }
+    }
+
+    private static String row(Reservation res) {
+        int packageId = (res.getRelatedPackage() != null)
+                ? res.getRelatedPackage().getId()
+                : 0;
+        String status = res.isStatus() ? "confirmed" : "cancelled";
+
+        String dateStartStr = (res.getDateStart() == null)
+                ? ""
+                : res.getDateStart().format(DATE_FORMATTER);
+
+        String dateEndStr = (res.getDateEnd() == null)
+                ? ""
+                : res.getDateEnd().format(DATE_FORMATTER);
+
+        return String.join(",",
+                String.valueOf(res.getId()),
+                String.valueOf(packageId),
+                status,
+                dateStartStr,
+                dateEndStr,
+                customerId(res)
+        );
+    }
+
+    private static String customerId(Reservation res) {
+        return (res.getCustomer() != null)
+                ? String.valueOf(res.getCustomer().getID())
+                : "customer is null";
     }
 
     /**
      * Generates a unique reservation ID.
      * @return New unique ID
      */
-    private static int generateId() {
+    static synchronized int generateId() {
+        loadReservations();
         return nextId++;
     }
 }
\ No newline at end of file
@@ -5,43 +5,90 @@ import products.Hotel;
 import products.Taxi;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Scanner;
 
 /**
  * Parses travel-related data from CSV files and creates product objects for hotels, flights, and taxis.
+ * After a successful parse each catalog is saved as a binary snapshot, which later runs load instead
+ * of the CSV for as long as the CSV is unchanged.
+ * Each catalog is guarded by its own lock, so the three can be parsed concurrently while callers
+ * asking for a catalog that is still loading wait for it instead of parsing it a second time.
  */
 public class TravelParser {
-    private static HashMap<Integer, Hotel> hotelsDict;
-    private static HashMap<Integer, Flight> flightsDict;
-    private static HashMap<Integer, Taxi> taxisDict;
+    private static final String HOTELS_CSV = "datasets/FinalKU_Travel_Agency_Dataset_Hotels.csv";
+    private static final String FLIGHTS_CSV = "datasets/FinalKU_Travel_Agency_Dataset_Flights.csv";
+    private static final String TAXIS_CSV = "datasets/FinalKU_Travel_Agency_Dataset_Taxis.csv";
+    private static final Object HOTELS_LOCK = new Object();
+    private static final Object FLIGHTS_LOCK = new Object();
+    private static final Object TAXIS_LOCK = new Object();
+    private static volatile IdRegistry<Hotel> hotelsDict;
+    private static volatile IdRegistry<Flight> flightsDict;
+    private static volatile IdRegistry<Taxi> taxisDict;
+    private static volatile HashMap<String, List<Hotel>> hotelsByCity;
+    private static volatile HashMap<String, List<Flight>> flightsByRoute;
+    private static volatile HashMap<String, List<Flight>> flightsByDepartureCity;
+    private static volatile HashMap<String, List<Flight>> flightsByArrivalCity;
+    private static volatile HashMap<String, List<Taxi>> taxisByCity;
+    private static long[] hotelsSourceStamp;
 
     /**
      * Parses hotel data from the hotels dataset CSV file and populates the hotels dictionary.
+     * When a dictionary is already loaded, hotels whose listing did not change keep their existing
+     * instances, together with the availability already cached on them.
      */
     public static void parseHotels() {
+        synchronized (HOTELS_LOCK) {
+            parseHotelsLocked();
+        }
+    }
+
+    /**
+     * Reloads the hotels dictionary if the hotels CSV changed on disk since it was last loaded.
+     *
+     * @return true if the dictionary was reloaded.
+     */
+    public static boolean reloadHotelsIfChanged() {
+        synchronized (HOTELS_LOCK) {
+            if (hotelsDict != null && Arrays.equals(hotelsSourceStamp, sourceStamp(HOTELS_CSV))) {
+                return false;
+            }
+            parseHotelsLocked();
+            return true;
+        }
+    }
+
+    private static void parseHotelsLocked() {
+        hotelsSourceStamp = sourceStamp(HOTELS_CSV);
+        HashMap<Integer, Hotel> cached = CatalogSnapshot.readHotels(HOTELS_CSV);
+        if (cached != null) {
+            publishHotels(keepUnchangedHotels(hotelsDict, cached));
+            return;
+        }
+
         HashMap<Integer, Hotel> hotelDict = new HashMap<>();
+        HashMap<String, String> strings = new HashMap<>();
         int uniqueId = 100000;
+        long[] fingerprint = CatalogSnapshot.fingerprint(HOTELS_CSV);
+        boolean parsed = false;
 
-        try {
-            File file = new File("datasets/FinalKU_Travel_Agency_Dataset_Hotels.csv");
-            Scanner myReader = new Scanner(file);
-            if (myReader.hasNextLine()) {
-                myReader.nextLine();
-            }
-            while (myReader.hasNextLine()) {
-                String data = myReader.nextLine();
-                String[] dataArray = data.split(",");
-
-                if (dataArray.length >= 6) {
-                    String name = dataArray[0];
-                    String city = dataArray[1];
-                    String roomType = dataArray[2];
-                    int availableCount = Integer.parseInt(dataArray[3]);
-                    double pricePerNight = Double.parseDouble(dataArray[4]);
-                    double distanceToAirport = Double.parseDouble(dataArray[5]);
+        try (MappedCsvReader reader = new MappedCsvReader(HOTELS_CSV)) {
+            reader.nextRow();
+            while (reader.nextRow()) {
+                if (reader.fieldCount() >= 6) {
+                    String name = pooled(strings, reader.getString(0));
+                    String city = pooled(strings, reader.getString(1));
+                    String roomType = pooled(strings, reader.getString(2));
+                    int availableCount = reader.getInt(3);
+                    double pricePerNight = reader.getDouble(4);
+                    double distanceToAirport = reader.getDouble(5);
 
                     Hotel hotel = new Hotel(name, city, roomType, availableCount, pricePerNight, distanceToAirport, uniqueId);
                     hotelDict.put(uniqueId, hotel);
@@ -49,75 +96,180 @@ public class TravelParser {
                     uniqueId++;
                 }
             }
-
-            myReader.close();
-        } catch (FileNotFoundException e) {
+            parsed = true;
+        } catch (IOException e) {
             System.out.println("An error occurred: " + e);
         } catch (NumberFormatException e) {
             System.out.println("Error parsing number: " + e);
         }
-        hotelsDict = hotelDict;
+        publishHotels(keepUnchangedHotels(hotelsDict, hotelDict));
+        if (parsed) {
+            CatalogSnapshot.writeHotels(HOTELS_CSV, fingerprint, hotelDict, 100000);
+        }
+    }
+
+    /**
+     * Replaces freshly parsed hotels with the previously loaded instances wherever the listing is unchanged.
+     *
+     * @param previous The currently loaded hotels, or null on the first load.
+     * @param fresh    The freshly parsed hotels.
+     * @return The fresh dictionary, reusing unchanged instances.
+     */
+    private static HashMap<Integer, Hotel> keepUnchangedHotels(Map<Integer, Hotel> previous, HashMap<Integer, Hotel> fresh) {
+        if (previous == null) {
+            return fresh;
+        }
+        for (Map.Entry<Integer, Hotel> entry : fresh.entrySet()) {
+            Hotel existing = previous.get(entry.getKey());
+            if (existing != null && existing.sameListing(entry.getValue())) {
+                entry.setValue(existing);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Moves hotels into an ID registry, indexes them by city and publishes both. The index is
+     * published first so that anyone who sees the new dictionary also sees its index.
+     *
+     * @param hotels The hotels by ID.
+     */
+    private static void publishHotels(HashMap<Integer, Hotel> hotels) {
+        HashMap<String, List<Hotel>> byCity = new HashMap<>();
+        IdRegistry<Hotel> registry = new IdRegistry<>(hotels);
+        for (Hotel hotel : registry.values()) {
+            byCity.computeIfAbsent(cityKey(hotel.getCity()), k -> new ArrayList<>()).add(hotel);
+        }
+        hotelsByCity = byCity;
+        hotelsDict = registry;
+    }
+
+    /**
+     * Indexes flights by departure and arrival city, by departure city in order of departure
+     * time, and by arrival city, and then publishes them.
+     *
+     * @param flights The flights by ID.
+     */
+    private static void publishFlights(HashMap<Integer, Flight> flights) {
+        HashMap<String, List<Flight>> byRoute = new HashMap<>();
+        HashMap<String, List<Flight>> byDepartureCity = new HashMap<>();
+        HashMap<String, List<Flight>> byArrivalCity = new HashMap<>();
+        IdRegistry<Flight> registry = new IdRegistry<>(flights);
+        for (Flight flight : registry.values()) {
+            byRoute.computeIfAbsent(routeKey(flight.getDepartureCity(), flight.getArrivalCity()), k -> new ArrayList<>()).add(flight);
+            byDepartureCity.computeIfAbsent(cityKey(flight.getDepartureCity()), k -> new ArrayList<>()).add(flight);
+            byArrivalCity.computeIfAbsent(cityKey(flight.getArrivalCity()), k -> new ArrayList<>()).add(flight);
+        }
+        for (List<Flight> departures : byDepartureCity.values()) {
+            departures.sort(Comparator.comparing(Flight::getDepartureTime).thenComparingInt(Flight::getId));
+        }
+        flightsByRoute = byRoute;
+        flightsByDepartureCity = byDepartureCity;
+        flightsByArrivalCity = byArrivalCity;
+        flightsDict = registry;
+    }
+
+    /**
+     * Indexes taxis by city and then publishes them.
+     *
+     * @param taxis The taxis by ID.
+     */
+    private static void publishTaxis(HashMap<Integer, Taxi> taxis) {
+        HashMap<String, List<Taxi>> byCity = new HashMap<>();
+        IdRegistry<Taxi> registry = new IdRegistry<>(taxis);
+        for (Taxi taxi : registry.values()) {
+            byCity.computeIfAbsent(cityKey(taxi.getCity()), k -> new ArrayList<>()).add(taxi);
+        }
+        taxisByCity = byCity;
+        taxisDict = registry;
+    }
+
+    /**
+     * Returns the first instance of an equal string seen while loading a catalog, so that hotels
+     * sharing a name, city or room type share one String, as they do when loaded from a snapshot.
+     */
+    private static String pooled(HashMap<String, String> strings, String value) {
+        String first = strings.putIfAbsent(value, value);
+        return first != null ? first : value;
+    }
+
+    private static String cityKey(String city) {
+        return city.toLowerCase(Locale.ROOT);
+    }
+
+    private static String routeKey(String departureCity, String arrivalCity) {
+        return cityKey(departureCity) + "\n" + cityKey(arrivalCity);
+    }
+
+    /**
+     * Returns the size and modification time of a file, used to detect changes cheaply.
+     *
+     * @param path Path of the file.
+     * @return The stamp as {size, mtime}, or null if the file cannot be read.
+     */
+    private static long[] sourceStamp(String path) {
+        File file = new File(path);
+        if (!file.exists()) {
+            return null;
+        }
+        return new long[]{file.length(), file.lastModified()};
     }
 
     /**
      * Parses flight data from the flights dataset CSV file and populates the flights dictionary.
+     * Rows with an empty arrival city describe stopover flights, whose legs are in columns 9 to 14.
      */
     public static void parseFlights() {
+        synchronized (FLIGHTS_LOCK) {
+            parseFlightsLocked();
+        }
+    }
+
+    private static void parseFlightsLocked() {
+        HashMap<Integer, Flight> cached = CatalogSnapshot.readFlights(FLIGHTS_CSV);
+        if (cached != null) {
+            publishFlights(cached);
+            return;
+        }
+
         HashMap<Integer, Flight> flightDict = new HashMap<>();
         int uniqueId = 200000;
+        long[] fingerprint = CatalogSnapshot.fingerprint(FLIGHTS_CSV);
+        boolean parsed = false;
 
-        try {
-            File file = new File("datasets/FinalKU_Travel_Agency_Dataset_Flights.csv");
-            Scanner myReader = new Scanner(file);
-            if (myReader.hasNextLine()) {
-                myReader.nextLine();
-            }
-            while (myReader.hasNextLine()) {
-                String data = myReader.nextLine();
-                String[] dataArray = data.split(",");
-
-                if (dataArray.length >= 9) {
-                    String flightID = dataArray[0];
-                    String airline = dataArray[1];
-                    String departureCity = dataArray[2];
-                    String ticketClass = dataArray[6];
-                    double price = Double.parseDouble(dataArray[7]);
-                    int availableSeats = Integer.parseInt(dataArray[8]);
-
-                    if (dataArray[3].isEmpty()) {
-                        String stopoverCity = dataArray[9];
-                        String finalArrivalCity = dataArray[10];
-                        String leg1DepartureTime = dataArray[11];
-                        String leg1ArrivalTime = dataArray[12];
-                        String leg2DepartureTime = dataArray[13];
-                        String leg2ArrivalTime = dataArray[14];
+        try (MappedCsvReader reader = new MappedCsvReader(FLIGHTS_CSV)) {
+            reader.nextRow();
+            while (reader.nextRow()) {
+                if (reader.fieldCount() >= 9) {
+                    String airline = reader.getString(1);
+                    String departureCity = reader.getString(2);
+                    String ticketClass = reader.getString(6);
+                    double price = reader.getDouble(7);
+                    int availableSeats = reader.getInt(8);
 
+                    if (reader.isEmpty(3)) {
                         Flight flight = new Flight(
                                 airline,
                                 departureCity,
-                                stopoverCity,
-                                finalArrivalCity,
-                                leg1DepartureTime,
-                                leg1ArrivalTime,
-                                leg2DepartureTime,
-                                leg2ArrivalTime,
+                                reader.getString(9),
+                                reader.getString(10),
+                                reader.getString(11),
+                                reader.getString(12),
+                                reader.getString(13),
+                                reader.getString(14),
                                 availableSeats,
                                 ticketClass,
                                 price, uniqueId
                         );
                         flightDict.put(uniqueId, flight);
                     } else {
-                        String arrivalCity = dataArray[3];
-                        String departureTime = dataArray[4];
-                        String arrivalTime = dataArray[5];
-
                         Flight flight = new Flight(
                                 airline,
                                 departureCity,
-                                arrivalCity,
+                                reader.getString(3),
                                 availableSeats,
-                                departureTime,
-                                arrivalTime,
+                                reader.getString(4),
+                                reader.getString(5),
                                 ticketClass,
                                 price, uniqueId
                         );
@@ -127,39 +279,48 @@ public class TravelParser {
                     uniqueId++;
                 }
             }
-
-            myReader.close();
-        } catch (FileNotFoundException e) {
+            parsed = true;
+        } catch (IOException e) {
             System.out.println("An error occurred: " + e);
         } catch (NumberFormatException e) {
             System.out.println("Error parsing number: " + e);
         }
-        flightsDict = flightDict;
+        publishFlights(flightDict);
+        if (parsed) {
+            CatalogSnapshot.writeFlights(FLIGHTS_CSV, fingerprint, flightDict, 200000);
+        }
     }
 
     /**
      * Parses taxi data from the taxis dataset CSV file and populates the taxis dictionary.
      */
     public static void parseTaxis() {
+        synchronized (TAXIS_LOCK) {
+            parseTaxisLocked();
+        }
+    }
+
+    private static void parseTaxisLocked() {
+        HashMap<Integer, Taxi> cached = CatalogSnapshot.readTaxis(TAXIS_CSV);
+        if (cached != null) {
+            publishTaxis(cached);
+            return;
+        }
+
         HashMap<Integer, Taxi> taxiDict = new HashMap<>();
         int uniqueId = 300000;
+        long[] fingerprint = CatalogSnapshot.fingerprint(TAXIS_CSV);
+        boolean parsed = false;
 
-        try {
-            File file = new File("datasets/FinalKU_Travel_Agency_Dataset_Taxis.csv");
-            Scanner myReader = new Scanner(file);
-            if (myReader.hasNextLine()) {
-                myReader.nextLine();
-            }
-            while (myReader.hasNextLine()) {
-                String data = myReader.nextLine();
-                String[] dataArray = data.split(",");
-
-                if (dataArray.length == 5) {
-                    String city = dataArray[0];
-                    String taxiType = dataArray[1];
-                    int availableTaxis = Integer.parseInt(dataArray[2]);
-                    double baseFare = Double.parseDouble(dataArray[3]);
-                    double perKmRate = Double.parseDouble(dataArray[4]);
+        try (MappedCsvReader reader = new MappedCsvReader(TAXIS_CSV)) {
+            reader.nextRow();
+            while (reader.nextRow()) {
+                if (reader.fieldCount() == 5) {
+                    String city = reader.getString(0);
+                    String taxiType = reader.getString(1);
+                    int availableTaxis = reader.getInt(2);
+                    double baseFare = reader.getDouble(3);
+                    double perKmRate = reader.getDouble(4);
 
                     Taxi taxi = new Taxi(city, taxiType, availableTaxis, baseFare, perKmRate, uniqueId);
                     taxiDict.put(uniqueId, taxi);
@@ -167,14 +328,16 @@ public class TravelParser {
                     uniqueId++;
                 }
             }
-
-            myReader.close();
-        } catch (FileNotFoundException e) {
+            parsed = true;
+        } catch (IOException e) {
             System.out.println("An error occurred: " + e);
         } catch (NumberFormatException e) {
             System.out.println("Error parsing number: " + e);
         }
-        taxisDict = taxiDict;
+        publishTaxis(taxiDict);
+        if (parsed) {
+            CatalogSnapshot.writeTaxis(TAXIS_CSV, fingerprint, taxiDict, 300000);
+        }
     }
 
     /**
@@ -182,11 +345,17 @@ public class TravelParser {
      *
      * @return A map of hotel IDs to hotel objects.
      */
-    public static Map<Integer, Hotel> getHotelsDict() {
-        if (hotelsDict == null) {
-            parseHotels();
+    public static IdRegistry<Hotel> getHotelsDict() {
+        IdRegistry<Hotel> dict = hotelsDict;
+        if (dict == null) {
+            synchronized (HOTELS_LOCK) {
+                if (hotelsDict == null) {
+                    parseHotelsLocked();
+                }
+                dict = hotelsDict;
+            }
         }
-        return hotelsDict;
+        return dict;
     }
 
     /**
@@ -194,11 +363,17 @@ public class TravelParser {
      *
      * @return A map of flight IDs to flight objects.
      */
-    public static Map<Integer, Flight> getFlightsDict() {
-        if (flightsDict == null) {
-            parseFlights();
+    public static IdRegistry<Flight> getFlightsDict() {
+        IdRegistry<Flight> dict = flightsDict;
+        if (dict == null) {
+            synchronized (FLIGHTS_LOCK) {
+                if (flightsDict == null) {
+                    parseFlightsLocked();
+                }
+                dict = flightsDict;
+            }
         }
-        return flightsDict;
+        return dict;
     }
 
     /**
@@ -206,10 +381,73 @@ public class TravelParser {
      *
      * @return A map of taxi IDs to taxi objects.
      */
-    public static Map<Integer, Taxi> getTaxisDict() {
-        if (taxisDict == null) {
-            parseTaxis();
+    public static IdRegistry<Taxi> getTaxisDict() {
+        IdRegistry<Taxi> dict = taxisDict;
+        if (dict == null) {
+            synchronized (TAXIS_LOCK) {
+                if (taxisDict == null) {
+                    parseTaxisLocked();
+                }
+                dict = taxisDict;
+            }
         }
-        return taxisDict;
+        return dict;
+    }
+
+    /**
+     * Looks up the hotels in a city, ignoring case.
+     *
+     * @param city The city name.
+     * @return The hotels in the city; empty if there are none. The list must not be modified.
+     */
+    public static List<Hotel> getHotelsInCity(String city) {
+        getHotelsDict();
+        return hotelsByCity.getOrDefault(cityKey(city), Collections.emptyList());
+    }
+
+    /**
+     * Looks up the flights between two cities, ignoring case.
+     *
+     * @param departureCity The departure city.
+     * @param arrivalCity   The arrival city.
+     * @return The flights on the route; empty if there are none. The list must not be modified.
+     */
+    public static List<Flight> getFlightsOnRoute(String departureCity, String arrivalCity) {
+        getFlightsDict();
+        return flightsByRoute.getOrDefault(routeKey(departureCity, arrivalCity), Collections.emptyList());
+    }
+
+    /**
+     * Looks up the flights leaving a city, ignoring case.
+     *
+     * @param departureCity The departure city.
+     * @return The flights leaving the city, ordered by departure time; empty if there are none.
+     * The list must not be modified.
+     */
+    public static List<Flight> getDeparturesFrom(String departureCity) {
+        getFlightsDict();
+        return flightsByDepartureCity.getOrDefault(cityKey(departureCity), Collections.emptyList());
+    }
+
+    /**
+     * Looks up the flights arriving in a city, ignoring case.
+     *
+     * @param arrivalCity The arrival city.
+     * @return The flights arriving in the city; empty if there are none. The list must not be modified.
+     */
+    public static List<Flight> getArrivalsAt(String arrivalCity) {
+        getFlightsDict();
+        return flightsByArrivalCity.getOrDefault(cityKey(arrivalCity), Collections.emptyList());
+    }
+
+    /**
+     * Looks up the taxis operating in a city, ignoring case.
+     *
+     * @param city The city name.
+     * @return The taxis in the city; empty if there are none. The list must not be modified.
+     */
+    public static List<Taxi> getTaxisInCity(String city) {
+        getTaxisDict();
+        return taxisByCity.getOrDefault(cityKey(city), Collections.emptyList());
     }
 }
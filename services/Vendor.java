@@ -2,8 +2,6 @@ package services;
 
 import Users.Customer;
 import products.Flight;
-import products.Hotel;
-import products.Taxi;
 import reservationlogs.Logger;
 
 import java.io.BufferedWriter;
@@ -22,37 +20,41 @@ public class Vendor {
 
     /**
      * Books a complete travel package including hotel, flight, and taxi for an existing reservation.
+     * If any part cannot be booked or written, everything is rolled back and the reservation is discarded.
      *
      * @param res The reservation containing package details
      * @param cst The customer making the booking
      * @throws IOException If there's an error writing transaction data
+     * @throws IllegalStateException If part of the package is no longer available
      */
     public static void packageSeller(Reservation res, Customer cst) throws IOException {
         Package pck = res.getRelatedPackage();
-        Hotel hotel = pck.getHotel();
-        for (LocalDate date = res.getRelatedPackage().getHotelStart(); !date.isAfter(res.getDateEnd()); date = date.plusDays(1)) {
-            hotel.book(date);
-        }
-
         Flight flight = pck.getFlight();
-        flight.book(res.getRelatedPackage().getFlight().isDayChange() ? res.getDateStart().minusDays(1):res.getDateStart());
-
-        Taxi taxi = pck.getTaxi();
-        double distanceKm = hotel.getDistanceToAirport();
-        int travelTimeMinutes = (int) Math.ceil((distanceKm / 60.0) * 60);
-        LocalDateTime taxiArrivalTime = res.getRelatedPackage().getTaxiTime().plusMinutes(travelTimeMinutes);
-
-        LocalDateTime bookingTime = res.getRelatedPackage().getTaxiTime();
-        while (!bookingTime.isAfter(taxiArrivalTime)) {
-            taxi.book(bookingTime);
-            bookingTime = bookingTime.plusMinutes(2);
+        LocalDate flightDate = flight.isDayChange() ? res.getDateStart().minusDays(1) : res.getDateStart();
+
+        BookingTransaction booking;
+        try {
+            booking = BookingTransaction.hold(pck, pck.getHotelStart(), res.getDateEnd(), flightDate, pck.getTaxiTime());
+        } catch (IllegalStateException e) {
+            ReservationsManagers.discardReservation(res.getId());
+            throw e;
         }
 
-        createTransaction(res, cst);
+        try {
+            booking.commit(res.getId());
+            createTransaction(res, cst);
+        } catch (IOException | RuntimeException e) {
+            booking.rollback();
+            ReservationsManagers.discardReservation(res.getId());
+            throw e;
+        }
+        flight.logReservation();
     }
 
     /**
      * Creates a new reservation and books a complete travel package.
+     * Hotel, flight and taxi capacity is held first and committed together with the reservation
+     * and its transaction record; if any step fails, everything is rolled back.
      *
      * @param pck The travel package to book
      * @param cst The customer making the booking
@@ -61,30 +63,51 @@ public class Vendor {
      * @param dateStart The start date of the trip
      * @param dateEnd The end date of the trip
      * @throws IOException If there's an error writing transaction data
+     * @throws IllegalStateException If part of the package is no longer available
      */
     public static void packageSeller(Package pck, Customer cst, LocalDateTime taxiTime,
                                      LocalDate hotelStartDate, LocalDate dateStart, LocalDate dateEnd) throws IOException {
-        Hotel hotel = pck.getHotel();
-        for (LocalDate date = hotelStartDate; !date.isAfter(dateEnd); date = date.plusDays(1)) {
-            hotel.book(date);
-        }
-
-        Flight flight = pck.getFlight();
-        flight.book(dateStart);
-
-        Taxi taxi = pck.getTaxi();
-        double distanceKm = hotel.getDistanceToAirport();
-        int travelTimeMinutes = (int) Math.ceil((distanceKm / 60.0) * 60);
-        LocalDateTime taxiArrivalTime = taxiTime.plusMinutes(travelTimeMinutes);
+        sell(BookingTransaction.hold(pck, hotelStartDate, dateEnd, dateStart, taxiTime), pck, cst);
+    }
 
-        LocalDateTime bookingTime = taxiTime;
-        while (!bookingTime.isAfter(taxiArrivalTime)) {
-            taxi.book(bookingTime);
-            bookingTime = bookingTime.plusMinutes(2);
+    /**
+     * Creates a new reservation from capacity held while the customer confirmed payment.
+     * If the hold has expired in the meantime, the package is booked afresh if it is still available.
+     *
+     * @param hold The payment hold placed for the package
+     * @param cst The customer making the booking
+     * @throws IOException If there's an error writing transaction data
+     * @throws IllegalStateException If the hold expired and part of the package is no longer available
+     */
+    public static void packageSeller(PaymentHold hold, Customer cst) throws IOException {
+        BookingTransaction booking = hold.claim();
+        if (booking == null) {
+            booking = BookingTransaction.hold(hold.getPackage(), hold.getHotelStart(), hold.getHotelEnd(),
+                    hold.getFlightDate(), hold.getTaxiTime());
         }
+        sell(booking, hold.getPackage(), cst);
+    }
 
-        Reservation newRes = ReservationsManagers.makeReservation(pck, cst);
-        createTransaction(newRes, cst);
+    /**
+     * Commits held capacity together with a new reservation and its transaction record,
+     * rolling everything back if any step fails. The reservation ID is taken first so that the
+     * committed availability rows can name it.
+     */
+    private static void sell(BookingTransaction booking, Package pck, Customer cst) throws IOException {
+        Reservation newRes = null;
+        try {
+            int reservationId = ReservationsManagers.generateId();
+            booking.commit(reservationId);
+            newRes = ReservationsManagers.makeReservation(reservationId, pck, cst);
+            createTransaction(newRes, cst);
+        } catch (IOException | RuntimeException e) {
+            booking.rollback();
+            if (newRes != null) {
+                ReservationsManagers.discardReservation(newRes.getId());
+            }
+            throw e;
+        }
+        pck.getFlight().logReservation();
         Logger.logPayment(cst.getUsername(),"Package",newRes.toString()+" Reservation ID "+newRes.getId(),newRes.getRelatedPackage().getDiscountedPrice());
     }
 